@@ -0,0 +1,21 @@
+package com.example.app.common.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+@ConditionalOnProperty(name = "chat.fanout.transport", havingValue = "kafka")
+public class KafkaConfig {
+
+    @Bean
+    public NewTopic chatMessagesTopic(@Value("${chat.fanout.kafka.topic:chat.messages}") String topic,
+                                      @Value("${chat.fanout.kafka.partitions:12}") int partitions,
+                                      @Value("${chat.fanout.kafka.replicas:1}") short replicas) {
+        // created by KafkaAdmin on startup if missing; partitions bound per-node consumer parallelism
+        return TopicBuilder.name(topic).partitions(partitions).replicas(replicas).build();
+    }
+}
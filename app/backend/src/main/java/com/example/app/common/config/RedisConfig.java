@@ -1,30 +1,38 @@
 package com.example.app.common.config;
 
-import com.example.app.message.service.RedisBroadcast;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
-import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    /** String keys, raw {@code byte[]} values: fan-out payloads are already encoded by BroadcastCodec. */
     @Bean
-    public RedisMessageListenerContainer redisMessageListenerContainer(
-            RedisConnectionFactory connectionFactory,
-            MessageListenerAdapter listenerAdapter) {
-        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
-        container.setConnectionFactory(connectionFactory);
-        // Use PatternTopic for wildcard channel matching
-        container.addMessageListener(listenerAdapter, new PatternTopic("chat:*"));
-        return container;
+    public RedisTemplate<String, byte[]> binaryRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        return template;
     }
 
     @Bean
-    public MessageListenerAdapter listenerAdapter(RedisBroadcast receiver) {
-        // The onMessage method will be invoked because RedisBroadcast implements MessageListener
-        return new MessageListenerAdapter(receiver, "onMessage");
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // deliver on the subscription's own thread, one message at a time and in arrival order: the
+        // default executor starts a thread per message, which reorders a room's messages before
+        // InboundDispatcher can put them on the room's lane. Listeners only enqueue (never waiting
+        // for space) or evict, since this thread also carries subscribe confirmations.
+        container.setTaskExecutor(new SyncTaskExecutor());
+        // room channels are added and removed at runtime by RedisRoomSubscriptions (pub/sub transport)
+        return container;
     }
 }
@@ -2,15 +2,19 @@ package com.example.app.common.config;
 
 import com.example.app.common.security.JwtAuthFilter;
 import com.example.app.common.security.TokenQueryParamAuthFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
@@ -32,8 +36,17 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * New hashes are written as {@code {bcrypt}...} at {@code auth.password.bcrypt-strength}. Hashes
+     * stored before the prefix was introduced still verify as plain bcrypt, and
+     * {@link PasswordEncoder#upgradeEncoding} flags both them and lower work factors for re-hashing on
+     * the next successful login.
+     */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 }
@@ -0,0 +1,28 @@
+package com.example.app.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class StreamingConfig {
+
+    /**
+     * Runs the SSE socket writes in MessageStreamController. A write blocks for as long as a slow
+     * client takes to drain, so in virtual-thread mode each connection's writes run on virtual
+     * threads instead of occupying boundedElastic's capped pool of platform threads. Either way a
+     * write is bounded by {@code server.tomcat.connection-timeout}.
+     */
+    @Bean(destroyMethod = "")
+    public Scheduler sseWriteScheduler(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (!virtualThreads) {
+            return Schedulers.boundedElastic();
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sse-write-");
+        executor.setVirtualThreads(true);
+        return Schedulers.fromExecutor(executor);
+    }
+}
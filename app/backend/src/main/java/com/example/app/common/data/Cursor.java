@@ -0,0 +1,56 @@
+package com.example.app.common.data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position on {@code (created_at, id)}. Clients only ever see the {@link #encode() encoded}
+ * form and hand it back verbatim, so the layout can change without breaking the API.
+ */
+public record Cursor(Instant createdAt, String id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public Cursor {
+        if (createdAt == null || id == null || id.isBlank()) {
+            throw new IllegalArgumentException("cursor requires createdAt and id");
+        }
+    }
+
+    public static Cursor of(Instant createdAt, Object id) {
+        return new Cursor(createdAt, String.valueOf(id));
+    }
+
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or {@code null} for a missing token (first page)
+     * @throws IllegalArgumentException when the token is malformed
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3) throw new IllegalArgumentException("invalid cursor");
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new Cursor(createdAt, parts[2]);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+    }
+
+    public UUID uuid() {
+        return UUID.fromString(id);
+    }
+
+    public long longId() {
+        return Long.parseLong(id);
+    }
+}
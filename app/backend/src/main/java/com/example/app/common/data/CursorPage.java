@@ -0,0 +1,31 @@
+package com.example.app.common.data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated result. Unlike {@link org.springframework.data.domain.Page} it
+ * carries no total, so producing it never costs a {@code count(*)}.
+ */
+public record CursorPage<T>(List<T> content, Cursor next) {
+
+    /**
+     * Builds a page from rows fetched with {@code limit + 1}: the extra row only signals that more
+     * data exists and is dropped from the content.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPage<>(content, cursorOf.apply(content.get(limit - 1)));
+    }
+
+    public boolean hasMore() {
+        return next != null;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), next);
+    }
+}
@@ -22,4 +22,8 @@ public class Pageing {
     }
     return PageRequest.of(p, s, sortObj);
   }
+  /** Page size for keyset queries: same default (20) and ceiling (200) as {@link #of}. */
+  public static int limit(Integer size){
+    return size==null?20:Math.min(200, Math.max(1, size));
+  }
 }
@@ -0,0 +1,35 @@
+package com.example.app.common.data;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * RFC 9562 version 7 UUIDs: a 48-bit millisecond timestamp followed by random bits. Consecutive
+ * ids sort close together, so primary-key inserts append to the right-hand edge of the B-tree
+ * instead of touching a random page like {@link UUID#randomUUID()}.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        return at(System.currentTimeMillis());
+    }
+
+    static UUID at(long epochMillis) {
+        byte[] rand = new byte[10];
+        RANDOM.nextBytes(rand);
+        long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | 0x7000L                                    // version 7
+                | ((rand[0] & 0x0FL) << 8) | (rand[1] & 0xFFL); // rand_a (12 bits)
+        long lsb = 0x8000_0000_0000_0000L;                      // variant 10
+        lsb |= (rand[2] & 0x3FL) << 56;
+        for (int i = 3; i < 10; i++) {
+            lsb |= (rand[i] & 0xFFL) << (8 * (9 - i));
+        }
+        return new UUID(msb, lsb);
+    }
+}
@@ -1,17 +1,16 @@
 package com.example.app.common.security;
-import com.auth0.jwt.JWT; import com.auth0.jwt.algorithms.Algorithm;
-import jakarta.servlet.*; import jakarta.servlet.http.*; import org.springframework.beans.factory.annotation.Value;
+import jakarta.servlet.*; import jakarta.servlet.http.*;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component; import org.springframework.web.filter.OncePerRequestFilter;
-import java.io.IOException; import java.util.Map;
+import java.io.IOException;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
-  private final Algorithm alg; private final String issuer;
-  public JwtAuthFilter(@Value("${jwt.secret}") String secret, @Value("${jwt.issuer}") String issuer){
-    this.alg = Algorithm.HMAC256(secret); this.issuer = issuer;
+  private final JwtVerifier jwtVerifier;
+  public JwtAuthFilter(JwtVerifier jwtVerifier){
+    this.jwtVerifier = jwtVerifier;
   }
   @Override
   protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
@@ -19,8 +18,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     if (h != null && h.startsWith("Bearer ")) {
       try {
         var token = h.substring(7);
-        var dec = JWT.require(alg).withIssuer(issuer).build().verify(token);
-        var auth = new UsernamePasswordAuthenticationToken(dec.getSubject(), null, java.util.List.of());
+        var auth = new UsernamePasswordAuthenticationToken(jwtVerifier.verify(token), null, java.util.List.of());
         auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
         SecurityContextHolder.getContext().setAuthentication(auth);
       } catch (Exception ignored) { /* invalid token -> no auth */ }
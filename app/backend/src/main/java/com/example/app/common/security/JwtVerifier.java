@@ -0,0 +1,99 @@
+package com.example.app.common.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Verifies access tokens for both authentication filters. The {@link JWTVerifier} is built once,
+ * and tokens that verified are remembered by SHA-256 digest until their {@code exp} (capped at
+ * {@code jwt.verify-cache.max-ttl-seconds}), so a client presenting the same token on every request
+ * pays for the HMAC check once. Rejected tokens are never cached.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JWTVerifier verifier;
+    private final Cache<String, Verified> verified;
+    private final Duration maxTtl;
+    private final Timer verifyTimer;
+
+    public JwtVerifier(@Value("${jwt.secret}") String secret,
+                       @Value("${jwt.issuer}") String issuer,
+                       @Value("${jwt.verify-cache.max-size:100000}") long maxSize,
+                       @Value("${jwt.verify-cache.max-ttl-seconds:900}") long maxTtlSeconds,
+                       MeterRegistry meterRegistry) {
+        this.verifier = JWT.require(Algorithm.HMAC256(secret)).withIssuer(issuer).build();
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.verified");
+        this.verifyTimer = meterRegistry.timer("jwt.verify");
+    }
+
+    /**
+     * @return the token's subject
+     * @throws JWTVerificationException if the token is malformed, forged, expired or from another issuer
+     */
+    public String verify(String token) {
+        String key = digest(token);
+        Verified hit = verified.getIfPresent(key);
+        if (hit != null && hit.expiresAt().isAfter(Instant.now())) {
+            return hit.subject();
+        }
+        DecodedJWT decoded = verifyTimer.record(() -> verifier.verify(token));
+        Instant exp = decoded.getExpiresAtAsInstant();
+        Instant cap = Instant.now().plus(maxTtl);
+        verified.put(key, new Verified(decoded.getSubject(), exp != null && exp.isBefore(cap) ? exp : cap));
+        return decoded.getSubject();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Verified(String subject, Instant expiresAt) {
+    }
+
+    private static final class UntilExpiry implements Expiry<String, Verified> {
+        @Override
+        public long expireAfterCreate(String key, Verified value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Verified value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Verified value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
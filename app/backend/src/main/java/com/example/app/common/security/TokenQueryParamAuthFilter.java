@@ -1,12 +1,9 @@
 package com.example.app.common.security;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,23 +15,22 @@ import java.io.IOException;
 @Component
 public class TokenQueryParamAuthFilter extends OncePerRequestFilter {
 
-    private final Algorithm alg;
-    private final String issuer;
+    private final JwtVerifier jwtVerifier;
 
-    public TokenQueryParamAuthFilter(@Value("${jwt.secret}") String secret, @Value("${jwt.issuer}") String issuer) {
-        this.alg = Algorithm.HMAC256(secret);
-        this.issuer = issuer;
+    public TokenQueryParamAuthFilter(JwtVerifier jwtVerifier) {
+        this.jwtVerifier = jwtVerifier;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
-        // Only apply this filter to the SSE stream path, and only if Authorization header is not present
-        if (req.getRequestURI().startsWith("/api/messages/stream/") && req.getHeader("Authorization") == null) {
+        // Only apply this filter to the SSE stream paths, and only if Authorization header is not present
+        String uri = req.getRequestURI();
+        boolean streamPath = uri.equals("/api/messages/stream") || uri.startsWith("/api/messages/stream/");
+        if (streamPath && req.getHeader("Authorization") == null) {
             String token = req.getParameter("token");
             if (token != null && !token.isBlank()) {
                 try {
-                    var dec = JWT.require(alg).withIssuer(issuer).build().verify(token);
-                    var auth = new UsernamePasswordAuthenticationToken(dec.getSubject(), null, java.util.List.of());
+                    var auth = new UsernamePasswordAuthenticationToken(jwtVerifier.verify(token), null, java.util.List.of());
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 } catch (Exception ignored) {
@@ -0,0 +1,10 @@
+package com.example.app.common.web;
+
+import java.util.List;
+
+public record CursorResponse<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasMore
+) {
+}
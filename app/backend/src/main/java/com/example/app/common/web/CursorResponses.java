@@ -0,0 +1,17 @@
+package com.example.app.common.web;
+
+import com.example.app.common.data.CursorPage;
+
+public final class CursorResponses {
+
+    private CursorResponses() {
+    }
+
+    public static <T> CursorResponse<T> from(CursorPage<T> page) {
+        return new CursorResponse<>(
+                page.content(),
+                page.hasMore() ? page.next().encode() : null,
+                page.hasMore()
+        );
+    }
+}
@@ -10,22 +10,25 @@ public class AttachmentEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 120)
+    @Column(name = "room_code", nullable = false, length = 120)
     private String roomCode;
 
     @Column(name = "uploader_id", nullable = false)
     private Long uploaderId;
 
-    @Column(nullable = false, length = 255)
+    @Column(name = "s3_key", nullable = false, length = 255)
     private String s3Key;
 
-    @Column(nullable = false, length = 120)
+    @Column(name = "content_type", nullable = false, length = 120)
     private String contentType;
 
     @Column(nullable = false)
     private long bytes;
 
-    @Column(nullable = false)
+    @Column(name = "thumbnail_key", length = 255)
+    private String thumbnailKey;
+
+    @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
     public Long getId() {
@@ -72,6 +75,14 @@ public class AttachmentEntity {
         bytes = b;
     }
 
+    public String getThumbnailKey() {
+        return thumbnailKey;
+    }
+
+    public void setThumbnailKey(String k) {
+        thumbnailKey = k;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,203 @@
+package com.example.app.files;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Removes attachments older than {@code retention.attachments.days}: walks expired rows oldest
+ * first in keyset chunks, deletes their objects and thumbnails with multi-key DeleteObjects
+ * requests (run in parallel up to {@code delete-parallelism}), then deletes the rows whose objects
+ * are gone and records the chunk's last position in {@code attachment_purge_checkpoint} in one
+ * short transaction. No transaction is open during the S3 calls; a session advisory lock held for
+ * the whole run keeps other nodes out instead.
+ * <p>
+ * An interrupted run resumes after the last committed chunk. Objects of the chunk in flight may
+ * already be gone while their rows remain; deleting them again is harmless. Rows whose object
+ * delete failed stay where they are while the checkpoint moves past them, and are retried when
+ * the next run starts again from the oldest expired row.
+ */
+@Component
+@ConditionalOnProperty(name = "retention.enabled", havingValue = "true", matchIfMissing = true)
+public class AttachmentPurger {
+    private static final Logger log = LoggerFactory.getLogger(AttachmentPurger.class);
+    private static final long PURGE_LOCK_KEY = 0x6174_7470_7572_6765L; // "attpurge"
+
+    private final AttachmentRepo repo;
+    private final S3Service s3;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final int days;
+    private final int chunkSize;
+    private final ExecutorService deleters;
+    private final Counter objectsDeleted;
+    private final Counter objectsFailed;
+    private final Counter rowsDeleted;
+    private final Timer deleteRequest;
+
+    public AttachmentPurger(AttachmentRepo repo,
+                            S3Service s3,
+                            JdbcTemplate jdbc,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${retention.attachments.days:${retention.days:90}}") int days,
+                            @Value("${retention.attachments.chunk-size:5000}") int chunkSize,
+                            @Value("${retention.attachments.delete-parallelism:4}") int parallelism) {
+        this.repo = repo;
+        this.s3 = s3;
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.days = days;
+        this.chunkSize = chunkSize;
+        AtomicInteger threads = new AtomicInteger();
+        this.deleters = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "attachment-purge-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.objectsDeleted = meterRegistry.counter("file.purge.objects", "result", "deleted");
+        this.objectsFailed = meterRegistry.counter("file.purge.objects", "result", "failed");
+        this.rowsDeleted = meterRegistry.counter("file.purge.rows");
+        this.deleteRequest = meterRegistry.timer("file.purge.delete.request");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deleters.shutdownNow();
+    }
+
+    /**
+     * Purges chunk by chunk until no expired rows are left. @return expired rows processed, or
+     * {@code 0} when another node is purging
+     */
+    public long run() {
+        Long total = jdbc.execute((ConnectionCallback<Long>) lockConnection -> {
+            // a session lock on a connection of its own, held across chunks without a transaction
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock")) {
+                return 0L;
+            }
+            try {
+                long purged = 0;
+                int chunk;
+                while ((chunk = purgeChunk()) > 0) {
+                    purged += chunk;
+                }
+                return purged;
+            } finally {
+                advisoryLock(lockConnection, "pg_advisory_unlock");
+            }
+        });
+        return total == null ? 0 : total;
+    }
+
+    /** @return rows scanned in this chunk, {@code 0} once the run is complete */
+    private int purgeChunk() {
+        Checkpoint at = loadCheckpoint();
+        List<AttachmentEntity> chunk = repo.findExpiredAfter(at.cutoff(), at.lastCreatedAt(), at.lastId(), Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbc.update("delete from attachment_purge_checkpoint"));
+            return 0;
+        }
+
+        List<String> keys = new ArrayList<>(chunk.size());
+        for (AttachmentEntity a : chunk) {
+            keys.add(a.getS3Key());
+            if (a.getThumbnailKey() != null) keys.add(a.getThumbnailKey());
+        }
+        Set<String> failed = deleteObjects(keys);
+        List<Long> gone = new ArrayList<>(chunk.size());
+        for (AttachmentEntity a : chunk) {
+            if (!failed.contains(a.getS3Key()) && !failed.contains(a.getThumbnailKey())) gone.add(a.getId());
+        }
+
+        AttachmentEntity last = chunk.get(chunk.size() - 1);
+        transactionTemplate.executeWithoutResult(status -> {
+            repo.deleteAllByIdInBatch(gone);
+            jdbc.update("""
+                    insert into attachment_purge_checkpoint (id, cutoff, last_created_at, last_id, updated_at)
+                    values (1, ?, ?, ?, now())
+                    on conflict (id) do update set last_created_at = excluded.last_created_at,
+                      last_id = excluded.last_id, updated_at = excluded.updated_at
+                    """, Timestamp.from(at.cutoff()), Timestamp.from(last.getCreatedAt()), last.getId());
+        });
+        rowsDeleted.increment(gone.size());
+        return chunk.size();
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select " + function + "(?)")) {
+            ps.setLong(1, PURGE_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            } finally {
+                // the pool hands out connections without auto-commit; a session lock outlives the
+                // transaction, which must not stay open for the whole run
+                if (!connection.getAutoCommit()) connection.commit();
+            }
+        }
+    }
+
+    /** @return keys whose objects may still exist */
+    private Set<String> deleteObjects(List<String> keys) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += S3Service.MAX_DELETE_KEYS) {
+            batches.add(keys.subList(i, Math.min(keys.size(), i + S3Service.MAX_DELETE_KEYS)));
+        }
+        List<CompletableFuture<List<String>>> requests = batches.stream()
+                .map(batch -> CompletableFuture.supplyAsync(() -> deleteRequest.record(() -> s3.deleteObjects(batch)), deleters))
+                .toList();
+        Set<String> failed = new HashSet<>();
+        for (int i = 0; i < batches.size(); i++) {
+            try {
+                failed.addAll(requests.get(i).join());
+            } catch (Exception e) {
+                log.warn("DeleteObjects for {} keys failed, keeping their rows for the next run: {}", batches.get(i).size(), e.getMessage());
+                failed.addAll(batches.get(i));
+            }
+        }
+        objectsDeleted.increment(keys.size() - failed.size());
+        objectsFailed.increment(failed.size());
+        return failed;
+    }
+
+    private Checkpoint loadCheckpoint() {
+        List<Checkpoint> saved = jdbc.query(
+                "select cutoff, last_created_at, last_id from attachment_purge_checkpoint where id = 1",
+                (rs, i) -> new Checkpoint(rs.getTimestamp("cutoff").toInstant(),
+                        rs.getTimestamp("last_created_at").toInstant(), rs.getLong("last_id")));
+        if (!saved.isEmpty()) {
+            return saved.get(0);
+        }
+        // a new run: fix the cutoff now so rows expiring meanwhile wait for the next run
+        return new Checkpoint(Instant.now().minus(days, ChronoUnit.DAYS), Instant.EPOCH, 0L);
+    }
+
+    private record Checkpoint(Instant cutoff, Instant lastCreatedAt, long lastId) {
+    }
+}
@@ -1 +1,14 @@
-package com.example.app.files; import org.springframework.data.jpa.repository.*; public interface AttachmentRepo extends JpaRepository<AttachmentEntity,Long>{}
\ No newline at end of file
+package com.example.app.files; import org.springframework.data.jpa.repository.*; import org.springframework.data.domain.Limit; import org.springframework.data.repository.query.Param; import org.springframework.transaction.annotation.Transactional; import java.time.Instant; import java.util.List;
+public interface AttachmentRepo extends JpaRepository<AttachmentEntity,Long>{
+  // walks idx_attachment_created_id (V8) from the (createdAt, id) position of the previous chunk
+  @Query("select a from AttachmentEntity a where a.createdAt < :cutoff and (a.createdAt > :afterCreatedAt or (a.createdAt = :afterCreatedAt and a.id > :afterId)) order by a.createdAt, a.id")
+  List<AttachmentEntity> findExpiredAfter(@Param("cutoff") Instant cutoff, @Param("afterCreatedAt") Instant afterCreatedAt, @Param("afterId") long afterId, Limit limit);
+  @Transactional @Modifying
+  @Query("update AttachmentEntity a set a.thumbnailKey = :thumbnailKey where a.id = :id")
+  int setThumbnailKey(@Param("id") long id, @Param("thumbnailKey") String thumbnailKey);
+  // room gallery, newest first: both walk idx_attachment_room_created_id (V10) and stop after `limit` rows
+  @Query("select new com.example.app.files.AttachmentSummary(a.id, a.roomCode, a.s3Key, a.contentType, a.bytes, a.createdAt, a.thumbnailKey) from AttachmentEntity a where a.roomCode = :roomCode order by a.createdAt desc, a.id desc")
+  List<AttachmentSummary> findRoomLatest(@Param("roomCode") String roomCode, Limit limit);
+  @Query("select new com.example.app.files.AttachmentSummary(a.id, a.roomCode, a.s3Key, a.contentType, a.bytes, a.createdAt, a.thumbnailKey) from AttachmentEntity a where a.roomCode = :roomCode and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.id < :id)) order by a.createdAt desc, a.id desc")
+  List<AttachmentSummary> findRoomBefore(@Param("roomCode") String roomCode, @Param("createdAt") Instant createdAt, @Param("id") long id, Limit limit);
+}
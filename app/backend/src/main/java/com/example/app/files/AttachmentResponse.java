@@ -0,0 +1,7 @@
+package com.example.app.files;
+
+import java.time.Instant;
+
+/** An attachment with presigned download URLs; {@code thumbnail} is null until a preview exists. */
+public record AttachmentResponse(Long id, String roomCode, String key, String contentType, long bytes, Instant createdAt,
+                                 String download, String thumbnail) {}
@@ -0,0 +1,6 @@
+package com.example.app.files;
+
+import java.time.Instant;
+
+/** Read-only attachment row for listings, selected straight into this record rather than loaded as an entity. */
+public record AttachmentSummary(Long id, String roomCode, String s3Key, String contentType, long bytes, Instant createdAt, String thumbnailKey) {}
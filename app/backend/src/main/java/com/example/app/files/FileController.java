@@ -1,28 +1,55 @@
 package com.example.app.files;
 
+import com.example.app.common.data.Cursor;
+import com.example.app.common.data.CursorPage;
+import com.example.app.common.data.Pageing;
+import com.example.app.common.web.CursorResponse;
+import com.example.app.common.web.CursorResponses;
 import com.example.app.user.service.AuthService;
+import org.springframework.data.domain.Limit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
+    private static final String KEY_PREFIX = "rooms/";
+    private static final int MAX_PARTS = 10_000;
 
     private final S3Service s3;
     private final AttachmentRepo repo;
+    private final ThumbnailService thumbnails;
+    private final MultipartTokens multipartTokens;
+    private final int maxBatch;
+    private final long partSize;
+    private final long multipartMaxSize;
 
-    public FileController(S3Service s3, AttachmentRepo r) {
+    public FileController(S3Service s3, AttachmentRepo r, ThumbnailService thumbnails, MultipartTokens multipartTokens, @Value("${file.presign.max-batch:100}") int maxBatch,
+                          @Value("${file.multipart.part-size:8388608}") long partSize, @Value("${file.multipart.max-size:${file.max-size.video:104857600}}") long multipartMaxSize) {
         this.s3 = s3;
         this.repo = r;
+        this.thumbnails = thumbnails;
+        this.multipartTokens = multipartTokens;
+        this.maxBatch = maxBatch;
+        this.partSize = partSize;
+        this.multipartMaxSize = multipartMaxSize;
     }
 
     record PresignReq(String contentType, String roomCode, Long bytes) {}
@@ -30,14 +57,123 @@ public class FileController {
     @PostMapping("/presign")
     public Map<String, Object> presign(@RequestBody PresignReq req) {
         currentUser(); // Ensure user is authenticated
-        String key = "rooms/" + req.roomCode() + "/" + UUID.randomUUID();
-        return s3.presignPut(key, req.contentType());
+        return s3.presignPut(newKey(req.roomCode()), req.contentType());
+    }
+
+    record PresignBatchReq(List<PresignReq> items) {}
+
+    /** Upload URLs for several files at once, in request order. */
+    @PostMapping("/presign/batch")
+    public Map<String, Object> presignBatch(@RequestBody PresignBatchReq req) {
+        currentUser();
+        checkBatch(req.items());
+        return Map.of("uploads", req.items().stream().map(i -> s3.presignPut(newKey(i.roomCode()), i.contentType())).toList());
+    }
+
+    record PresignGetBatchReq(List<String> keys) {}
+
+    /** Download URLs by key; URLs signed recently for the same key are reused. */
+    @PostMapping("/presign/get/batch")
+    public Map<String, Object> presignGetBatch(@RequestBody PresignGetBatchReq req) {
+        currentUser();
+        checkBatch(req.keys());
+        if (req.keys().stream().anyMatch(k -> k == null || !k.startsWith(KEY_PREFIX))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "keys must be attachment keys");
+        }
+        return Map.of("urls", s3.presignGet(req.keys()));
+    }
+
+    /**
+     * Starts a multipart upload for a large file. The client then asks for part URLs, PUTs the
+     * parts in parallel (retrying only failed ones), and completes or aborts the upload; uploads
+     * left unfinished are aborted by {@link MultipartUploadSweeper}. The returned
+     * {@code uploadToken} goes with every later call and pins the declared size: each part URL is
+     * signed for that part's exact length, and only part numbers up to {@code partCount} are signed.
+     */
+    @PostMapping("/multipart")
+    public Map<String, Object> createMultipart(@RequestBody PresignReq req) {
+        currentUser();
+        if (req.bytes() == null || req.bytes() <= 0 || req.bytes() > multipartMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bytes must be between 1 and " + multipartMaxSize);
+        }
+        String key = newKey(req.roomCode());
+        String uploadId = s3.createMultipartUpload(key, req.contentType());
+        long size = Math.max(partSize, (req.bytes() + MAX_PARTS - 1) / MAX_PARTS);
+        var upload = new MultipartTokens.Upload(key, uploadId, req.bytes(), size);
+        return Map.of("key", key, "uploadId", uploadId, "uploadToken", multipartTokens.issue(upload), "partSize", size, "partCount", upload.partCount());
+    }
+
+    record MultipartPartsReq(String key, String uploadId, String uploadToken, List<Integer> partNumbers) {}
+
+    @PostMapping("/multipart/parts")
+    public Map<String, Object> presignParts(@RequestBody MultipartPartsReq req) {
+        currentUser();
+        checkUpload(req.key(), req.uploadId());
+        var upload = multipartTokens.verify(req.uploadToken(), req.key(), req.uploadId());
+        checkBatch(req.partNumbers());
+        Map<Integer, String> urls = new TreeMap<>();
+        for (Integer n : req.partNumbers()) {
+            if (n == null || n < 1 || n > upload.partCount()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "part numbers run from 1 to " + upload.partCount());
+            }
+            urls.put(n, s3.presignUploadPart(req.key(), req.uploadId(), n, upload.partLength(n)));
+        }
+        return Map.of("urls", urls);
+    }
+
+    record CompletedPartReq(Integer partNumber, String etag) {}
+    record MultipartCompleteReq(String key, String uploadId, String uploadToken, List<CompletedPartReq> parts) {}
+
+    @PostMapping("/multipart/complete")
+    public Map<String, Object> completeMultipart(@RequestBody MultipartCompleteReq req) {
+        currentUser();
+        checkUpload(req.key(), req.uploadId());
+        var upload = multipartTokens.verify(req.uploadToken(), req.key(), req.uploadId());
+        if (req.parts() == null || req.parts().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "parts are required");
+        }
+        Map<Integer, String> etags = new TreeMap<>();
+        for (CompletedPartReq p : req.parts()) {
+            if (p.partNumber() == null || p.etag() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "each part needs partNumber and etag");
+            }
+            if (p.partNumber() < 1 || p.partNumber() > upload.partCount()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "part numbers run from 1 to " + upload.partCount());
+            }
+            etags.put(p.partNumber(), p.etag());
+        }
+        long size;
+        try {
+            s3.completeMultipartUpload(req.key(), req.uploadId(), etags);
+            size = s3.objectSize(req.key());
+        } catch (S3Exception e) {
+            throw clientError(e);
+        }
+        // signed part lengths already prevent this; stores that ignore them are caught here
+        if (size > upload.bytes()) {
+            s3.deleteObjects(List.of(req.key()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "upload is larger than the declared " + upload.bytes() + " bytes");
+        }
+        return Map.of("key", req.key(), "bytes", size);
+    }
+
+    record MultipartAbortReq(String key, String uploadId) {}
+
+    @PostMapping("/multipart/abort")
+    public void abortMultipart(@RequestBody MultipartAbortReq req) {
+        currentUser();
+        checkUpload(req.key(), req.uploadId());
+        try {
+            s3.abortMultipartUpload(req.key(), req.uploadId());
+        } catch (S3Exception e) {
+            throw clientError(e);
+        }
     }
 
     record AttachReq(String roomCode, String key, String contentType, Long bytes) {}
 
     @PostMapping("/attach")
-    public Map<String, Object> attach(@RequestBody AttachReq req) {
+    public AttachmentResponse attach(@RequestBody AttachReq req) {
         AuthContext auth = currentUser();
         var e = new AttachmentEntity();
         e.setRoomCode(req.roomCode());
@@ -46,7 +182,74 @@ public class FileController {
         e.setContentType(req.contentType());
         e.setBytes(req.bytes());
         repo.save(e);
-        return Map.of("id", e.getId(), "download", s3.presignGet(e.getS3Key()));
+        thumbnails.submit(e);
+        return toResponse(e);
+    }
+
+    /** The attachment with current URLs; poll this for the thumbnail after attaching an image. */
+    @GetMapping("/{id}")
+    public AttachmentResponse get(@PathVariable long id) {
+        currentUser();
+        return repo.findById(id).map(this::toResponse)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "attachment not found"));
+    }
+
+    /**
+     * A room's attachments newest first, keyed on {@code (created_at, id)} like message history.
+     * Rows are read as {@link AttachmentSummary} projections and every URL on the page is presigned
+     * in one batch.
+     */
+    @GetMapping("/rooms/{roomCode}")
+    public CursorResponse<AttachmentResponse> gallery(@PathVariable String roomCode,
+                                                      @RequestParam(required = false) String before,
+                                                      @RequestParam(required = false) Integer limit) {
+        currentUser();
+        Cursor cursor = Cursor.decode(before);
+        int size = Pageing.limit(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<AttachmentSummary> rows = cursor == null
+                ? repo.findRoomLatest(roomCode, fetch)
+                : repo.findRoomBefore(roomCode, cursor.createdAt(), cursor.longId(), fetch);
+        CursorPage<AttachmentSummary> page = CursorPage.of(rows, size, a -> Cursor.of(a.createdAt(), a.id()));
+
+        List<String> keys = new ArrayList<>(page.content().size() * 2);
+        for (AttachmentSummary a : page.content()) {
+            keys.add(a.s3Key());
+            if (a.thumbnailKey() != null) keys.add(a.thumbnailKey());
+        }
+        Map<String, String> urls = keys.isEmpty() ? Map.of() : s3.presignGet(keys);
+        return CursorResponses.from(page.map(a -> new AttachmentResponse(a.id(), a.roomCode(), a.s3Key(), a.contentType(), a.bytes(), a.createdAt(),
+                urls.get(a.s3Key()), a.thumbnailKey() == null ? null : urls.get(a.thumbnailKey()))));
+    }
+
+    private AttachmentResponse toResponse(AttachmentEntity e) {
+        String thumbnail = e.getThumbnailKey() == null ? null : s3.presignGet(e.getThumbnailKey());
+        return new AttachmentResponse(e.getId(), e.getRoomCode(), e.getS3Key(), e.getContentType(), e.getBytes(), e.getCreatedAt(),
+                s3.presignGet(e.getS3Key()), thumbnail);
+    }
+
+    private static String newKey(String roomCode) {
+        return KEY_PREFIX + roomCode + "/" + UUID.randomUUID();
+    }
+
+    private static void checkUpload(String key, String uploadId) {
+        if (key == null || !key.startsWith(KEY_PREFIX) || uploadId == null || uploadId.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "key and uploadId are required");
+        }
+    }
+
+    /** S3 rejections caused by the request (unknown upload, bad or missing parts) are the client's. */
+    private static RuntimeException clientError(S3Exception e) {
+        if (e.statusCode() >= 400 && e.statusCode() < 500) {
+            return new ResponseStatusException(HttpStatus.valueOf(e.statusCode()), e.awsErrorDetails() != null ? e.awsErrorDetails().errorCode() : "rejected");
+        }
+        return e;
+    }
+
+    private void checkBatch(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > maxBatch) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch must hold 1 to " + maxBatch + " items");
+        }
     }
 
     private AuthContext currentUser() {
@@ -0,0 +1,78 @@
+package com.example.app.files;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Signed record of a multipart upload's declared size and part layout, handed to the client when
+ * the upload starts and sent back with every later call, so part URLs and completion can be held
+ * to what was declared without keeping upload state on the server. It expires with the upload
+ * ({@code file.cleaner.age-hours}).
+ */
+@Component
+public class MultipartTokens {
+    private static final String AUDIENCE = "multipart-upload";
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final long ageHours;
+
+    public MultipartTokens(@Value("${jwt.secret}") String secret, @Value("${file.cleaner.age-hours:24}") long ageHours) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm).withAudience(AUDIENCE).build();
+        this.ageHours = ageHours;
+    }
+
+    record Upload(String key, String uploadId, long bytes, long partSize) {
+        long partCount() {
+            return (bytes + partSize - 1) / partSize;
+        }
+
+        /** Exact length of part {@code n}: the last part takes the remainder. */
+        long partLength(int n) {
+            return n < partCount() ? partSize : bytes - (partCount() - 1) * partSize;
+        }
+    }
+
+    String issue(Upload upload) {
+        return JWT.create()
+                .withAudience(AUDIENCE)
+                .withClaim("key", upload.key())
+                .withClaim("uploadId", upload.uploadId())
+                .withClaim("bytes", upload.bytes())
+                .withClaim("partSize", upload.partSize())
+                .withExpiresAt(Date.from(Instant.now().plus(ageHours, ChronoUnit.HOURS)))
+                .sign(algorithm);
+    }
+
+    /** @throws ResponseStatusException 400 unless {@code token} is valid and names this upload */
+    Upload verify(String token, String key, String uploadId) {
+        if (token == null || token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "uploadToken is required");
+        }
+        DecodedJWT jwt;
+        try {
+            jwt = verifier.verify(token);
+        } catch (JWTVerificationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid uploadToken");
+        }
+        Long bytes = jwt.getClaim("bytes").asLong();
+        Long partSize = jwt.getClaim("partSize").asLong();
+        if (bytes == null || partSize == null || !key.equals(jwt.getClaim("key").asString())
+                || !uploadId.equals(jwt.getClaim("uploadId").asString())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "uploadToken does not match the upload");
+        }
+        return new Upload(key, uploadId, bytes, partSize);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.app.files;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Aborts multipart uploads that were started more than {@code file.cleaner.age-hours} ago and
+ * never completed, so their stored parts stop taking up space. Every node sweeps; aborting an
+ * upload another node already aborted is a no-op.
+ */
+@Component
+@ConditionalOnProperty(name = "file.cleaner.enabled", havingValue = "true", matchIfMissing = true)
+public class MultipartUploadSweeper {
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadSweeper.class);
+
+    private final S3Service s3;
+    private final long ageHours;
+    private final Counter abandoned;
+
+    public MultipartUploadSweeper(S3Service s3, MeterRegistry meterRegistry, @Value("${file.cleaner.age-hours:24}") long ageHours) {
+        this.s3 = s3;
+        this.ageHours = ageHours;
+        this.abandoned = meterRegistry.counter("file.multipart.abandoned");
+    }
+
+    @Scheduled(cron = "${file.cleaner.cron:0 30 * * * *}")
+    public void sweep() {
+        try {
+            int aborted = s3.abortMultipartUploadsBefore("rooms/", Instant.now().minus(ageHours, ChronoUnit.HOURS));
+            abandoned.increment(aborted);
+            if (aborted > 0) log.info("Aborted {} abandoned multipart uploads", aborted);
+        } catch (Exception e) {
+            log.warn("Multipart upload sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
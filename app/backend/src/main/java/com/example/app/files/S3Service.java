@@ -1,10 +1,17 @@
 package com.example.app.files;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.auth.credentials.*;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.*;
 import software.amazon.awssdk.services.s3.model.*;
@@ -13,21 +20,45 @@ import software.amazon.awssdk.services.s3.presigner.model.*;
 
 import java.net.URI;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Bucket access for attachments. Presigned GET URLs are cached per key and handed out again until
+ * {@code s3.presign.cache-margin-seconds} before they expire, so re-rendering a room does not
+ * re-sign every image; PUT URLs are for new keys and always signed fresh.
+ */
 @Service
 public class S3Service {
     private static final Logger log = LoggerFactory.getLogger(S3Service.class);
+    /** Most keys S3 accepts in one DeleteObjects request. */
+    public static final int MAX_DELETE_KEYS = 1000;
     private final String bucket;
     private final S3Client s3;
     private final S3Presigner presigner;
+    private final Duration signatureDuration;
+    private final Cache<String, String> getUrls;
+    private final Timer signGetTimer;
+    private final Timer signPutTimer;
+    private final Timer signPartTimer;
 
-    public S3Service(@Value("${s3.endpoint}") String endpoint, @Value("${s3.region}") String region, @Value("${s3.bucket}") String bucket, @Value("${s3.access-key}") String ak, @Value("${s3.secret-key}") String sk, @Value("${s3.path-style:true}") boolean pathStyle) {
+    public S3Service(@Value("${s3.endpoint}") String endpoint, @Value("${s3.region}") String region, @Value("${s3.bucket}") String bucket, @Value("${s3.access-key}") String ak, @Value("${s3.secret-key}") String sk, @Value("${s3.path-style:true}") boolean pathStyle,
+                     @Value("${s3.presign.ttl-seconds:600}") long ttlSeconds, @Value("${s3.presign.cache-margin-seconds:120}") long marginSeconds, @Value("${s3.presign.cache-max-size:100000}") long cacheMaxSize, MeterRegistry meterRegistry) {
         var creds = AwsBasicCredentials.create(ak, sk);
         var conf = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
         this.s3 = S3Client.builder().endpointOverride(URI.create(endpoint)).credentialsProvider(StaticCredentialsProvider.create(creds)).region(Region.of(region)).serviceConfiguration(conf).build();
         this.presigner = S3Presigner.builder().endpointOverride(URI.create(endpoint)).credentialsProvider(StaticCredentialsProvider.create(creds)).region(Region.of(region)).serviceConfiguration(conf).build();
         this.bucket = bucket;
+        this.signatureDuration = Duration.ofSeconds(ttlSeconds);
+        // a cached URL always has at least the margin left when handed out
+        this.getUrls = Caffeine.newBuilder().maximumSize(cacheMaxSize).expireAfterWrite(Duration.ofSeconds(Math.max(0, ttlSeconds - marginSeconds))).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, getUrls, "s3.presign.get");
+        this.signGetTimer = meterRegistry.timer("s3.presign.sign", "op", "get");
+        this.signPutTimer = meterRegistry.timer("s3.presign.sign", "op", "put");
+        this.signPartTimer = meterRegistry.timer("s3.presign.sign", "op", "part");
         try {
             s3.createBucket(CreateBucketRequest.builder().bucket(bucket).build());
             log.info("S3 bucket '{}' checked/created successfully.", bucket);
@@ -38,13 +69,90 @@ public class S3Service {
 
     public Map<String, Object> presignPut(String key, String contentType) {
         var req = PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build();
-        var presigned = presigner.presignPutObject(PutObjectPresignRequest.builder().signatureDuration(Duration.ofMinutes(10)).putObjectRequest(req).build());
+        var presigned = signPutTimer.record(() -> presigner.presignPutObject(PutObjectPresignRequest.builder().signatureDuration(signatureDuration).putObjectRequest(req).build()));
         return Map.of("url", presigned.url().toString(), "headers", presigned.signedHeaders(), "key", key);
     }
 
     public String presignGet(String key) {
+        return getUrls.get(key, this::signGet);
+    }
+
+    /** Presigned GET URLs by key, signing only the keys not cached. */
+    public Map<String, String> presignGet(Collection<String> keys) {
+        return getUrls.getAll(keys, missing -> {
+            var signed = new HashMap<String, String>();
+            for (String k : missing) signed.put(k, signGet(k));
+            return signed;
+        });
+    }
+
+    private String signGet(String key) {
         var req = GetObjectRequest.builder().bucket(bucket).key(key).build();
-        var p = presigner.presignGetObject(GetObjectPresignRequest.builder().signatureDuration(Duration.ofMinutes(10)).getObjectRequest(req).build());
+        var p = signGetTimer.record(() -> presigner.presignGetObject(GetObjectPresignRequest.builder().signatureDuration(signatureDuration).getObjectRequest(req).build()));
+        return p.url().toString();
+    }
+
+    /** Opens an object for reading; the caller closes the stream. */
+    public ResponseInputStream<GetObjectResponse> getObject(String key) {
+        return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    public void putObject(String key, byte[] bytes, String contentType) {
+        s3.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(), RequestBody.fromBytes(bytes));
+    }
+
+    /** Starts a multipart upload. @return its upload id */
+    public String createMultipartUpload(String key, String contentType) {
+        return s3.createMultipartUpload(CreateMultipartUploadRequest.builder().bucket(bucket).key(key).contentType(contentType).build()).uploadId();
+    }
+
+    /** The URL only accepts a body of exactly {@code contentLength} bytes: the length is part of the signature. */
+    public String presignUploadPart(String key, String uploadId, int partNumber, long contentLength) {
+        var req = UploadPartRequest.builder().bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber).contentLength(contentLength).build();
+        var p = signPartTimer.record(() -> presigner.presignUploadPart(UploadPartPresignRequest.builder().signatureDuration(signatureDuration).uploadPartRequest(req).build()));
         return p.url().toString();
     }
+
+    /** @param etags part number to the ETag S3 returned for it, in part order */
+    public void completeMultipartUpload(String key, String uploadId, Map<Integer, String> etags) {
+        var parts = etags.entrySet().stream().map(e -> CompletedPart.builder().partNumber(e.getKey()).eTag(e.getValue()).build()).toList();
+        s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()).build());
+    }
+
+    /** @return the object's size in bytes */
+    public long objectSize(String key) {
+        return s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build()).contentLength();
+    }
+
+    public void abortMultipartUpload(String key, String uploadId) {
+        s3.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+    }
+
+    /** Aborts multipart uploads under {@code prefix} started before {@code cutoff}. @return uploads aborted */
+    public int abortMultipartUploadsBefore(String prefix, Instant cutoff) {
+        int aborted = 0;
+        for (var page : s3.listMultipartUploadsPaginator(ListMultipartUploadsRequest.builder().bucket(bucket).prefix(prefix).build())) {
+            for (var upload : page.uploads()) {
+                if (!upload.initiated().isBefore(cutoff)) continue;
+                try {
+                    abortMultipartUpload(upload.key(), upload.uploadId());
+                    aborted++;
+                } catch (NoSuchUploadException e) {
+                    // completed or aborted meanwhile
+                }
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Deletes up to {@link #MAX_DELETE_KEYS} objects in one request. Missing keys count as deleted.
+     * @return the keys that could not be deleted
+     */
+    public List<String> deleteObjects(List<String> keys) {
+        var objects = keys.stream().map(k -> ObjectIdentifier.builder().key(k).build()).toList();
+        getUrls.invalidateAll(keys);
+        var res = s3.deleteObjects(DeleteObjectsRequest.builder().bucket(bucket).delete(Delete.builder().objects(objects).quiet(true).build()).build());
+        return res.errors().stream().filter(e -> !"NoSuchKey".equals(e.code())).map(S3Error::key).toList();
+    }
 }
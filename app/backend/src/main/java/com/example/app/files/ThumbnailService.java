@@ -0,0 +1,193 @@
+package com.example.app.files;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates preview images for image attachments in the background. Jobs run on a fixed pool of
+ * {@code file.thumbnail.threads} behind a queue of {@code file.thumbnail.queue-capacity}; when the
+ * queue is full new jobs are dropped (and counted) rather than slowing down uploads, and those
+ * attachments simply have no thumbnail. Each job reads the original from the bucket, decodes it
+ * subsampled close to the target size, scales it to fit {@code width} x {@code height} and stores
+ * it next to the original under {@code <key><suffix>.jpg} (or {@code .png} when it has alpha).
+ */
+@Service
+public class ThumbnailService {
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final S3Service s3;
+    private final AttachmentRepo repo;
+    private final boolean enabled;
+    private final int width;
+    private final int height;
+    private final String suffix;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Timer duration;
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter rejected;
+    private final DistributionSummary sourceBytes;
+
+    public ThumbnailService(S3Service s3,
+                            AttachmentRepo repo,
+                            MeterRegistry meterRegistry,
+                            @Value("${file.thumbnail.enabled:true}") boolean enabled,
+                            @Value("${file.thumbnail.width:150}") int width,
+                            @Value("${file.thumbnail.height:150}") int height,
+                            @Value("${file.thumbnail.suffix:_thumb}") String suffix,
+                            @Value("${file.thumbnail.max-pixels:40000000}") long maxPixels,
+                            @Value("${file.thumbnail.threads:2}") int threads,
+                            @Value("${file.thumbnail.queue-capacity:1000}") int queueCapacity) {
+        this.s3 = s3;
+        this.repo = repo;
+        this.enabled = enabled;
+        this.width = width;
+        this.height = height;
+        this.suffix = suffix;
+        this.maxPixels = maxPixels;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "thumbnail-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.duration = meterRegistry.timer("file.thumbnail.duration");
+        this.generated = meterRegistry.counter("file.thumbnail.jobs", "result", "generated");
+        this.failed = meterRegistry.counter("file.thumbnail.jobs", "result", "failed");
+        this.rejected = meterRegistry.counter("file.thumbnail.jobs", "result", "rejected");
+        this.sourceBytes = DistributionSummary.builder("file.thumbnail.source.bytes").baseUnit("bytes").register(meterRegistry);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "file.thumbnail");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Queues a thumbnail for {@code attachment} if it is an image this JVM can decode. */
+    public void submit(AttachmentEntity attachment) {
+        if (!enabled || !isSupported(attachment.getContentType())) {
+            return;
+        }
+        long id = attachment.getId();
+        String key = attachment.getS3Key();
+        try {
+            executor.execute(() -> generate(id, key));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+
+    static boolean isSupported(String contentType) {
+        return contentType != null && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    private void generate(long id, String key) {
+        try {
+            duration.record(() -> {
+                Thumbnail thumb = render(key);
+                if (thumb == null) {
+                    failed.increment();
+                    return;
+                }
+                String thumbKey = key + suffix + (thumb.png() ? ".png" : ".jpg");
+                s3.putObject(thumbKey, thumb.bytes(), thumb.png() ? "image/png" : "image/jpeg");
+                if (repo.setThumbnailKey(id, thumbKey) == 0) {
+                    // the attachment was purged meanwhile
+                    s3.deleteObjects(List.of(thumbKey));
+                    return;
+                }
+                generated.increment();
+            });
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Thumbnail for {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    private record Thumbnail(byte[] bytes, boolean png) {
+    }
+
+    /** @return the encoded thumbnail, or null when the object is not a decodable image within limits */
+    private Thumbnail render(String key) {
+        try (ResponseInputStream<GetObjectResponse> in = s3.getObject(key); ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > maxPixels) {
+                    log.debug("Skipping thumbnail for {}: {}x{} exceeds the pixel limit", key, w, h);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // decode every n-th pixel, keeping at least twice the target size for a clean downscale
+                int step = Math.max(1, Math.min(w / (2 * width), h / (2 * height)));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage source = reader.read(0, param);
+                sourceBytes.record(in.response().contentLength());
+                return encode(scale(source, width, height));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.debug("Could not decode {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Scales {@code source} to fit within {@code maxW} x {@code maxH}, keeping its aspect ratio. */
+    static BufferedImage scale(BufferedImage source, int maxW, int maxH) {
+        double ratio = Math.min(1.0, Math.min((double) maxW / source.getWidth(), (double) maxH / source.getHeight()));
+        int w = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int h = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage out = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static Thumbnail encode(BufferedImage image) throws IOException {
+        boolean png = image.getColorModel().hasAlpha();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        ImageIO.write(image, png ? "png" : "jpg", out);
+        return new Thumbnail(out.toByteArray(), png);
+    }
+}
@@ -1,21 +1,27 @@
 package com.example.app.message.domain;
 
+import com.example.app.common.data.UuidV7;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Entity
 @Table(name = "message")
-public class Message {
+public class Message implements Persistable<UUID> {
 
     @Id
     @Column(name = "id", columnDefinition = "uuid", nullable = false)
-    private UUID id = UUID.randomUUID();
+    private UUID id = UuidV7.next();
 
     @Column(name = "room_id")
     private String roomId;
@@ -29,13 +35,30 @@ public class Message {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // The id is assigned up front, so Spring Data cannot infer new-ness from it; without this flag
+    // save() would merge() and SELECT the row before every INSERT.
+    @Transient
+    private boolean isNew = true;
+
     @PrePersist
     void onPersist() {
         if (createdAt == null) {
-            createdAt = Instant.now();
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
         }
     }
 
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @Override
     public UUID getId() {
         return id;
     }
@@ -0,0 +1,35 @@
+package com.example.app.message.repository;
+
+import com.example.app.message.domain.MessageOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface MessageOutboxRepository extends JpaRepository<MessageOutbox, Long> {
+
+    // one claimer at a time across the cluster, so every earlier claim is visible to the next
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryRelayLock(@Param("key") long key);
+
+    // unclaimed (or expired) rows whose room has no earlier row still being published
+    @Query(value = """
+            select * from message_outbox o
+            where (o.claimed_until is null or o.claimed_until < now())
+              and not exists (select 1 from message_outbox p
+                              where p.room_id = o.room_id and p.id < o.id and p.claimed_until >= now())
+            order by o.id limit :limit for update skip locked""", nativeQuery = true)
+    List<MessageOutbox> lockBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "update message_outbox set claimed_until = now() + :leaseMs * interval '1 millisecond' where id in (:ids)", nativeQuery = true)
+    int claim(@Param("ids") List<Long> ids, @Param("leaseMs") long leaseMs);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update message_outbox set claimed_until = null where id in (:ids)", nativeQuery = true)
+    int release(@Param("ids") List<Long> ids);
+}
@@ -1,10 +1,31 @@
 package com.example.app.message.repository;
 
 import com.example.app.message.domain.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
-public interface MessageRepository extends JpaRepository<Message, UUID>, JpaSpecificationExecutor<Message> {
+public interface MessageRepository extends JpaRepository<Message, UUID>, JpaSpecificationExecutor<Message>,
+        MessageSearchRepository {
+
+    // Both history queries walk idx_message_room_created_id (V4) backwards and stop after `limit` rows.
+    @Query("select m from Message m where m.roomId = :roomId order by m.createdAt desc, m.id desc")
+    List<Message> findLatest(@Param("roomId") String roomId, Limit limit);
+
+    @Query("""
+            select m from Message m
+            where m.roomId = :roomId
+              and (m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<Message> findBefore(@Param("roomId") String roomId,
+                             @Param("createdAt") Instant createdAt,
+                             @Param("id") UUID id,
+                             Limit limit);
 }
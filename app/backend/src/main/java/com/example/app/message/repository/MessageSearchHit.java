@@ -0,0 +1,19 @@
+package com.example.app.message.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Row returned by the indexed message search. {@code highlight} marks matched terms with
+ * {@link MessageSearchRepository#MATCH_START} / {@link MessageSearchRepository#MATCH_END}.
+ */
+public record MessageSearchHit(
+        UUID id,
+        String roomId,
+        Long senderId,
+        String text,
+        Instant createdAt,
+        double rank,
+        String highlight
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.app.message.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface MessageSearchRepository {
+
+    String MATCH_START = "\u0001";
+    String MATCH_END = "\u0002";
+
+    /**
+     * Ranked search over {@code message.text_tsv} (word matches) and the trigram index (substring
+     * matches), optionally scoped to a room inside the same indexed query. Results are ordered by
+     * rank, then recency; the pageable's sort is ignored.
+     */
+    Page<MessageSearchHit> searchText(String q, String roomId, Pageable pageable);
+}
@@ -0,0 +1,73 @@
+package com.example.app.message.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+class MessageSearchRepositoryImpl implements MessageSearchRepository {
+
+    // pg_trgm can only use the index for patterns with at least one full trigram
+    private static final int MIN_SUBSTRING_LENGTH = 3;
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=" + MATCH_START + ",StopSel=" + MATCH_END + ",MaxFragments=2,MinWords=5,MaxWords=20";
+
+    private static final RowMapper<MessageSearchHit> ROW_MAPPER = (rs, i) -> new MessageSearchHit(
+            rs.getObject("id", UUID.class),
+            rs.getString("room_id"),
+            rs.getLong("sender_id"),
+            rs.getString("text"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getDouble("rank"),
+            rs.getString("highlight")
+    );
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final int countCap;
+
+    MessageSearchRepositoryImpl(NamedParameterJdbcTemplate jdbc,
+                                @Value("${chat.search.count-cap:1000}") int countCap) {
+        this.jdbc = jdbc;
+        this.countCap = countCap;
+    }
+
+    @Override
+    public Page<MessageSearchHit> searchText(String q, String roomId, Pageable pageable) {
+        String term = q.trim();
+        boolean substring = term.length() >= MIN_SUBSTRING_LENGTH;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("q", term)
+                .addValue("pattern", "%" + escapeLike(term) + "%")
+                .addValue("headline", HEADLINE_OPTIONS)
+                .addValue("roomId", roomId)
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset())
+                .addValue("cap", countCap);
+
+        String where = " where (m.text_tsv @@ t.query" + (substring ? " or m.text ilike :pattern" : "") + ")"
+                + (roomId != null ? " and m.room_id = :roomId" : "");
+        String from = " from message m cross join websearch_to_tsquery('simple', :q) as t(query)";
+
+        List<MessageSearchHit> content = jdbc.query(
+                "select m.id, m.room_id, m.sender_id, m.text, m.created_at,"
+                        + " ts_rank(m.text_tsv, t.query) as rank,"
+                        + " ts_headline('simple', m.text, t.query, :headline) as highlight"
+                        + from + where
+                        + " order by rank desc, m.created_at desc, m.id desc limit :limit offset :offset",
+                params, ROW_MAPPER);
+
+        // Counting every match of a common word would undo the index; the total is capped instead.
+        return PageableExecutionUtils.getPage(content, pageable, () -> jdbc.queryForObject(
+                "select count(*) from (select 1" + from + where + " limit :cap) c", params, Long.class));
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
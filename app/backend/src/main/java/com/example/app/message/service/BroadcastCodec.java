@@ -0,0 +1,58 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Wire format shared by the fan-out transports. Writes with the format named by
+ * {@code chat.fanout.codec} ({@code json} or {@code compact}) and reads every known format, so a
+ * cluster can be rolled onto a new format in two steps: deploy everywhere with the old writer,
+ * then switch the writer.
+ */
+@Component
+public class BroadcastCodec {
+
+    private final List<BroadcastFormat> formats = List.of(new JsonBroadcastFormat(), new CompactBroadcastFormat());
+    private final BroadcastFormat writer;
+    private final DistributionSummary encodedBytes;
+
+    public BroadcastCodec(@Value("${chat.fanout.codec:json}") String codec, MeterRegistry meterRegistry) {
+        this.writer = formats.stream()
+                .filter(f -> f.name().equalsIgnoreCase(codec))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown chat.fanout.codec: " + codec));
+        this.encodedBytes = DistributionSummary.builder("chat.fanout.payload.bytes")
+                .tag("codec", writer.name())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public byte[] encode(MessageResponse message) {
+        try {
+            byte[] payload = writer.encode(message);
+            encodedBytes.record(payload.length);
+            return payload;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode message " + message.id(), e);
+        }
+    }
+
+    public MessageResponse decode(byte[] payload) {
+        for (BroadcastFormat format : formats) {
+            if (format.canDecode(payload)) {
+                try {
+                    return format.decode(payload);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Malformed " + format.name() + " payload", e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unrecognised payload format"
+                + (payload.length > 0 ? " (leading byte 0x%02x)".formatted(payload[0]) : " (empty)"));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+
+/**
+ * One wire format for {@link MessageResponse} payloads exchanged between nodes. Formats identify
+ * themselves by the first byte of what they write, so {@link BroadcastCodec} can read any of them
+ * regardless of which one the sender was configured with.
+ */
+interface BroadcastFormat {
+
+    String name();
+
+    boolean canDecode(byte[] payload);
+
+    byte[] encode(MessageResponse message) throws Exception;
+
+    MessageResponse decode(byte[] payload) throws Exception;
+}
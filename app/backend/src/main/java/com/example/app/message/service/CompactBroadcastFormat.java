@@ -0,0 +1,117 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Hand-rolled binary layout, version {@code 0x01}:
+ * <pre>
+ * version:u8  flags:u8  [id:u64 u64]  room:varint+utf8  [sender:i64]  [text:varint+utf8]  [createdAt:i64 sec, i32 nanos]
+ * </pre>
+ * Optional fields are present when their flag bit is set. A new layout takes a new version byte;
+ * decoders reject versions they do not know instead of guessing.
+ */
+final class CompactBroadcastFormat implements BroadcastFormat {
+
+    static final byte VERSION = 0x01;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_SENDER = 1 << 1;
+    private static final int HAS_TEXT = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+
+    @Override
+    public String name() {
+        return "compact";
+    }
+
+    @Override
+    public boolean canDecode(byte[] payload) {
+        return payload.length > 0 && payload[0] == VERSION;
+    }
+
+    @Override
+    public byte[] encode(MessageResponse message) {
+        byte[] room = message.roomId().getBytes(StandardCharsets.UTF_8);
+        byte[] text = message.text() == null ? null : message.text().getBytes(StandardCharsets.UTF_8);
+        int flags = (message.id() != null ? HAS_ID : 0)
+                | (message.senderId() != null ? HAS_SENDER : 0)
+                | (text != null ? HAS_TEXT : 0)
+                | (message.createdAt() != null ? HAS_CREATED_AT : 0);
+
+        int size = 2 + varintSize(room.length) + room.length;
+        if (message.id() != null) size += 16;
+        if (message.senderId() != null) size += 8;
+        if (text != null) size += varintSize(text.length) + text.length;
+        if (message.createdAt() != null) size += 12;
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(VERSION).put((byte) flags);
+        if (message.id() != null) {
+            buf.putLong(message.id().getMostSignificantBits()).putLong(message.id().getLeastSignificantBits());
+        }
+        putVarint(buf, room.length);
+        buf.put(room);
+        if (message.senderId() != null) {
+            buf.putLong(message.senderId());
+        }
+        if (text != null) {
+            putVarint(buf, text.length);
+            buf.put(text);
+        }
+        if (message.createdAt() != null) {
+            buf.putLong(message.createdAt().getEpochSecond()).putInt(message.createdAt().getNano());
+        }
+        return buf.array();
+    }
+
+    @Override
+    public MessageResponse decode(byte[] payload) {
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        if (buf.get() != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact payload version " + payload[0]);
+        }
+        int flags = buf.get();
+        UUID id = (flags & HAS_ID) != 0 ? new UUID(buf.getLong(), buf.getLong()) : null;
+        String room = getString(buf);
+        Long sender = (flags & HAS_SENDER) != 0 ? buf.getLong() : null;
+        String text = (flags & HAS_TEXT) != 0 ? getString(buf) : null;
+        Instant createdAt = (flags & HAS_CREATED_AT) != 0 ? Instant.ofEpochSecond(buf.getLong(), buf.getInt()) : null;
+        return new MessageResponse(id, room, sender, text, createdAt);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = getVarint(buf);
+        String s = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) size++;
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7f) != 0) {
+            buf.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buf) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buf.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
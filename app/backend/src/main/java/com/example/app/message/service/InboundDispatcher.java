@@ -0,0 +1,150 @@
+package com.example.app.message.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Runs inbound fan-out work (decode and {@link MessageBroadcaster#emit}) on a fixed set of lanes,
+ * each a single thread with its own queue. A room always hashes to the same lane, so its messages
+ * stay in order while different rooms proceed in parallel and one busy room only delays the rooms
+ * that share its lane.
+ * <p>
+ * {@link #dispatch} never blocks, because push transports call it on their connection's IO
+ * thread, which also carries every other room and the subscribe confirmations. When the lane is
+ * full the message is dropped and counted, and before its next task the lane
+ * {@linkplain MessageBroadcaster#reset resets} the room: its local subscribers are disconnected and
+ * resume from their last event id, which reads the dropped message back from the database. Pull
+ * transports, which own their reader thread and can leave messages in the log, use
+ * {@link #dispatchOrWait} to push back instead.
+ */
+@Component
+public class InboundDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(InboundDispatcher.class);
+
+    private final Lane[] lanes;
+    private final Timer blocked;
+    private final Counter dropped;
+
+    @Autowired
+    public InboundDispatcher(MessageBroadcaster broadcaster,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.fanout.lanes.count:0}") int count,
+                             @Value("${chat.fanout.lanes.capacity:10000}") int capacity) {
+        this(broadcaster::reset, meterRegistry, count, capacity);
+    }
+
+    InboundDispatcher(Consumer<String> onOverflow, MeterRegistry meterRegistry, int count, int capacity) {
+        int n = count > 0 ? count : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[n];
+        for (int i = 0; i < n; i++) {
+            lanes[i] = new Lane(i, capacity, onOverflow);
+            Gauge.builder("chat.fanout.lane.queue", lanes[i].queue, BlockingQueue::size)
+                    .tag("lane", Integer.toString(i))
+                    .register(meterRegistry);
+        }
+        this.blocked = meterRegistry.timer("chat.fanout.lane.blocked");
+        this.dropped = meterRegistry.counter("chat.fanout.lane.dropped");
+    }
+
+    /** Queues {@code task} on the room's lane, or drops it and resets the room when the lane is full. */
+    public void dispatch(String roomId, Runnable task) {
+        Lane lane = lane(roomId);
+        if (!lane.queue.offer(task)) {
+            dropped.increment();
+            if (lane.overflowed.add(roomId)) {
+                log.warn("Fan-out lane {} is full; dropping messages for room {} and resetting its subscribers",
+                        lane.thread.getName(), roomId);
+            }
+        }
+    }
+
+    /** Queues {@code task} on the room's lane, waiting for space when the lane is full. */
+    public void dispatchOrWait(String roomId, Runnable task) {
+        Lane lane = lane(roomId);
+        if (lane.queue.offer(task)) {
+            return;
+        }
+        try {
+            blocked.recordCallable(() -> {
+                lane.queue.put(task);
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Lane lane(String roomId) {
+        return lanes[Math.floorMod(roomId.hashCode(), lanes.length)];
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    private static final class Lane {
+        final BlockingQueue<Runnable> queue;
+        // rooms that lost a message to a full queue, reset by the lane thread itself so the reset
+        // never races the room's emits
+        final Set<String> overflowed = ConcurrentHashMap.newKeySet();
+        final Consumer<String> onOverflow;
+        final Thread thread;
+
+        Lane(int index, int capacity, Consumer<String> onOverflow) {
+            this.queue = new LinkedBlockingQueue<>(capacity);
+            this.onOverflow = onOverflow;
+            this.thread = new Thread(this::run, "fanout-lane-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Inbound fan-out task failed", e);
+                }
+                resetOverflowed();
+            }
+        }
+
+        private void resetOverflowed() {
+            for (Iterator<String> it = overflowed.iterator(); it.hasNext(); ) {
+                String roomId = it.next();
+                it.remove();
+                try {
+                    onOverflow.accept(roomId);
+                } catch (Exception e) {
+                    log.error("Failed to reset room {} after a fan-out overflow", roomId, e);
+                }
+            }
+        }
+    }
+}
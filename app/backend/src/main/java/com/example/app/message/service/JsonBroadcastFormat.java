@@ -0,0 +1,41 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/** The original JSON payload, written as UTF-8 bytes. Recognised by its leading {@code '{'}. */
+final class JsonBroadcastFormat implements BroadcastFormat {
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    JsonBroadcastFormat() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Register JavaTimeModule to handle Instant, ZonedDateTime, etc.
+        objectMapper.findAndRegisterModules();
+        this.writer = objectMapper.writerFor(MessageResponse.class);
+        this.reader = objectMapper.readerFor(MessageResponse.class);
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean canDecode(byte[] payload) {
+        return payload.length > 0 && payload[0] == '{';
+    }
+
+    @Override
+    public byte[] encode(MessageResponse message) throws Exception {
+        return writer.writeValueAsBytes(message);
+    }
+
+    @Override
+    public MessageResponse decode(byte[] payload) throws Exception {
+        return reader.readValue(payload);
+    }
+}
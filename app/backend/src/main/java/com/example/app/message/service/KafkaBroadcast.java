@@ -0,0 +1,85 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Kafka transport. Records are keyed by room id, so each room maps to one partition and keeps its
+ * order; producer batching is governed by {@code spring.kafka.producer} (linger, batch size). Every
+ * node assigns itself all {@code chat.fanout.kafka.partitions} partitions directly, without a
+ * consumer group, which turns the topic into a broadcast: all nodes see all messages, in batches
+ * per poll. With no group there is nothing to rebalance, no offsets are committed and no group is
+ * left behind on the broker when a node goes away; a node starts at the end of each partition
+ * ({@code auto-offset-reset: latest}), as clients catch up through resume anyway. Adding
+ * partitions to the topic means raising {@code partitions} to match and restarting the nodes.
+ * Groups named {@code chat-fanout-<host>} left by builds that used a group per node are no longer
+ * read and can be deleted ({@code kafka-consumer-groups --delete --group <name>}).
+ */
+@Component
+@ConditionalOnProperty(name = "chat.fanout.transport", havingValue = "kafka")
+public class KafkaBroadcast implements MessageFanout {
+    private static final Logger log = LoggerFactory.getLogger(KafkaBroadcast.class);
+
+    private final KafkaTemplate<String, byte[]> kafka;
+    private final MessageBroadcaster localBroadcaster;
+    private final BroadcastCodec codec;
+    private final InboundDispatcher dispatcher;
+    private final String topic;
+
+    public KafkaBroadcast(KafkaTemplate<String, byte[]> kafka,
+                          MessageBroadcaster localBroadcaster,
+                          BroadcastCodec codec,
+                          InboundDispatcher dispatcher,
+                          @Value("${chat.fanout.kafka.topic:chat.messages}") String topic) {
+        this.kafka = kafka;
+        this.localBroadcaster = localBroadcaster;
+        this.codec = codec;
+        this.dispatcher = dispatcher;
+        this.topic = topic;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(MessageResponse dto) {
+        try {
+            return kafka.send(topic, dto.roomId(), codec.encode(dto))
+                    .thenApply(result -> null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @KafkaListener(
+            id = "chat-fanout",
+            // without a group id and with assigned partitions the container commits nothing
+            idIsGroup = false,
+            topicPartitions = @TopicPartition(
+                    topic = "${chat.fanout.kafka.topic:chat.messages}",
+                    partitions = "#{'0-' + (${chat.fanout.kafka.partitions:12} - 1)}"),
+            concurrency = "${chat.fanout.kafka.concurrency:1}",
+            batch = "true")
+    public void onBatch(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            // the record key is the room id
+            dispatcher.dispatchOrWait(record.key() != null ? record.key() : "", () -> {
+                try {
+                    MessageResponse dto = codec.decode(record.value());
+                    localBroadcaster.emit(dto.roomId(), dto);
+                } catch (Exception e) {
+                    log.error("Failed to process message from Kafka {}-{}@{}",
+                            record.topic(), record.partition(), record.offset(), e);
+                }
+            });
+        }
+    }
+}
@@ -1,21 +1,194 @@
 package com.example.app.message.service;
 
 import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Node-local delivery of room messages to SSE subscribers. Each message is encoded into an
+ * {@link SseFrame} once, and that same buffer goes to every subscriber of the room. A room's sink
+ * exists only while it has subscribers and is dropped with the last one, so rooms nobody listens
+ * to (or mistyped room ids) cost nothing. Each subscriber gets its own buffer of
+ * {@code chat.stream.subscriber-buffer} messages; when a slow client fills it,
+ * {@code chat.stream.overflow} decides whether the oldest messages are dropped
+ * ({@code drop-oldest}) or the client is disconnected ({@code disconnect}) so that it reconnects
+ * and resumes from its last event id. The last {@code chat.stream.dedupe-window} message ids of a
+ * room are remembered, so a message the fan-out delivers twice reaches subscribers once. A
+ * {@link RoomInterestChanged} event is published whenever a room gains a subscriber or loses its
+ * last one.
+ */
 @Component
 public class MessageBroadcaster {
-    private final ConcurrentHashMap<String, Sinks.Many<MessageResponse>> sinks = new ConcurrentHashMap<>();
+
+    // listener threads may emit into the same room concurrently; spin briefly instead of dropping
+    private static final Sinks.EmitFailureHandler RETRY_CONCURRENT = Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final RecentMessages recentMessages;
+    private final SseFrames frames;
+    private final ApplicationEventPublisher events;
+    private final int subscriberBuffer;
+    private final BufferOverflowStrategy overflowStrategy;
+    private final AtomicLong buffered = new AtomicLong();
+    private final Counter overflows;
+    private final Counter duplicates;
+    private final int dedupeWindow;
+
+    public MessageBroadcaster(RecentMessages recentMessages,
+                              SseFrames frames,
+                              ApplicationEventPublisher events,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.stream.subscriber-buffer:256}") int subscriberBuffer,
+                              @Value("${chat.stream.overflow:disconnect}") String overflow,
+                              @Value("${chat.stream.dedupe-window:1024}") int dedupeWindow) {
+        this.recentMessages = recentMessages;
+        this.frames = frames;
+        this.events = events;
+        this.subscriberBuffer = subscriberBuffer;
+        this.overflowStrategy = switch (overflow) {
+            case "drop-oldest" -> BufferOverflowStrategy.DROP_OLDEST;
+            case "disconnect" -> BufferOverflowStrategy.ERROR;
+            default -> throw new IllegalArgumentException("chat.stream.overflow must be drop-oldest or disconnect: " + overflow);
+        };
+        this.overflows = meterRegistry.counter("chat.stream.overflows", "policy", overflow);
+        this.duplicates = meterRegistry.counter("chat.stream.duplicates");
+        this.dedupeWindow = dedupeWindow;
+        Gauge.builder("chat.stream.rooms", rooms, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("chat.stream.subscribers", rooms, r -> subscriberStats(r, false)).register(meterRegistry);
+        Gauge.builder("chat.stream.subscribers.max.per.room", rooms, r -> subscriberStats(r, true)).register(meterRegistry);
+        Gauge.builder("chat.stream.buffered", buffered, AtomicLong::get).register(meterRegistry);
+    }
 
     public void emit(String room, MessageResponse dto) {
-        sinks.computeIfAbsent(room, k -> Sinks.many().multicast().onBackpressureBuffer()).tryEmitNext(dto);
+        if (MessageFanout.isTombstone(dto)) {
+            // deleted on some node; subscribers already saw the message, buffered copies must go
+            recentMessages.evict(room);
+            return;
+        }
+        recentMessages.append(dto);
+        Room target = rooms.get(room);
+        if (target == null) {
+            return;
+        }
+        if (target.firstSeen(dto.id())) {
+            target.sink.emitNext(frames.message(dto), RETRY_CONCURRENT);
+        } else {
+            duplicates.increment();
+        }
+    }
+
+    /**
+     * Ends every local subscription to {@code room} with an overflow error and drops its recent
+     * messages, after an inbound message for the room had to be dropped. Subscribers resume from
+     * their last event id, which then reads the database and so picks up what was dropped.
+     */
+    public void reset(String room) {
+        recentMessages.evict(room);
+        Room target = rooms.remove(room);
+        if (target != null) {
+            target.sink.emitError(Exceptions.failWithOverflow("inbound fan-out lane full for room " + room), RETRY_CONCURRENT);
+            events.publishEvent(new RoomInterestChanged(room));
+        }
+    }
+
+    public boolean hasSubscribers(String room) {
+        return rooms.containsKey(room);
     }
 
-    public Flux<MessageResponse> stream(String room) {
-        return sinks.computeIfAbsent(room, k -> Sinks.many().multicast().onBackpressureBuffer()).asFlux();
+    public Flux<SseFrame> stream(String room) {
+        return Flux.defer(() -> {
+            Room target = rooms.compute(room, (k, existing) -> {
+                Room r = existing != null ? existing : new Room(dedupeWindow);
+                r.subscribers.incrementAndGet();
+                return r;
+            });
+            // on every subscription; listeners re-read the room's state, so repeats are cheap
+            events.publishEvent(new RoomInterestChanged(room));
+            AtomicLong pending = new AtomicLong();
+            return target.sink.asFlux()
+                    .doOnNext(m -> {
+                        pending.incrementAndGet();
+                        buffered.incrementAndGet();
+                    })
+                    .onBackpressureBuffer(subscriberBuffer, dropped -> {
+                        pending.decrementAndGet();
+                        buffered.decrementAndGet();
+                        overflows.increment();
+                    }, overflowStrategy)
+                    .doOnNext(m -> {
+                        pending.decrementAndGet();
+                        buffered.decrementAndGet();
+                    })
+                    .doFinally(signal -> {
+                        buffered.addAndGet(-pending.getAndSet(0));
+                        release(room, target);
+                    });
+        });
+    }
+
+    private void release(String room, Room target) {
+        boolean[] closed = new boolean[1];
+        rooms.computeIfPresent(room, (k, r) -> {
+            closed[0] = r == target && r.subscribers.decrementAndGet() == 0;
+            return closed[0] ? null : r;
+        });
+        if (closed[0]) {
+            events.publishEvent(new RoomInterestChanged(room));
+        }
+    }
+
+    private static double subscriberStats(Map<String, Room> rooms, boolean max) {
+        int total = 0;
+        int top = 0;
+        for (Room r : rooms.values()) {
+            int n = r.subscribers.get();
+            total += n;
+            top = Math.max(top, n);
+        }
+        return max ? top : total;
+    }
+
+    private static final class Room {
+        // best effort: one subscriber without demand never holds back the others; per-subscriber
+        // buffering happens downstream in stream()
+        final Sinks.Many<SseFrame> sink = Sinks.many().multicast().directBestEffort();
+        final AtomicInteger subscribers = new AtomicInteger();
+        // ids of the room's latest messages: the outbox relay delivers at least once
+        private final Set<UUID> recentIds = new HashSet<>();
+        private final ArrayDeque<UUID> recentOrder = new ArrayDeque<>();
+        private final int window;
+
+        Room(int window) {
+            this.window = window;
+        }
+
+        synchronized boolean firstSeen(UUID id) {
+            if (!recentIds.add(id)) {
+                return false;
+            }
+            recentOrder.addLast(id);
+            if (recentOrder.size() > window) {
+                recentIds.remove(recentOrder.pollFirst());
+            }
+            return true;
+        }
     }
 }
@@ -0,0 +1,7 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+
+/** Published inside the creating transaction; {@link RecentMessages} buffers the message once it commits. */
+public record MessageCreated(MessageResponse message) {
+}
@@ -0,0 +1,32 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cross-node transport for new messages. {@link #publish} hands a message to every backend node,
+ * and each node's implementation delivers what it receives to {@link MessageBroadcaster#emit}.
+ * The active implementation is selected with {@code chat.fanout.transport}.
+ * <p>
+ * Deletions travel the same way as a {@link #tombstone}, so every node drops what it has buffered
+ * for the room, in order with the room's other messages.
+ */
+public interface MessageFanout {
+
+    /** A deleted message: only the id and room are set. */
+    static MessageResponse tombstone(String roomId, UUID id) {
+        return new MessageResponse(id, roomId, null, null, null);
+    }
+
+    static boolean isTombstone(MessageResponse message) {
+        return message.createdAt() == null;
+    }
+
+    /**
+     * @return completes once the transport has accepted the message, or exceptionally if it could
+     * not; {@link MessageOutboxRelay} keeps the outbox row until then
+     */
+    CompletableFuture<Void> publish(MessageResponse message);
+}
@@ -0,0 +1,213 @@
+package com.example.app.message.service;
+
+import com.example.app.message.domain.MessageOutbox;
+import com.example.app.message.repository.MessageOutboxRepository;
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves {@code message_outbox} rows to the {@link MessageFanout} in batches, off the request
+ * thread. A drain is kicked right after each creating transaction commits, and a periodic sweep
+ * picks up anything left behind (failed publishes, a node that died before relaying).
+ * <p>
+ * A batch is claimed for {@code chat.outbox.lease-ms} in a short transaction, published with no
+ * transaction or connection held, and each row is deleted once its publish completes, even if
+ * that is after {@code chat.outbox.publish-timeout-ms}. A row whose publish fails is released for
+ * the next drain; one whose node dies keeps its claim until the lease runs out. Delivery is
+ * therefore at-least-once: {@link MessageBroadcaster#emit} and {@link RecentMessages} drop
+ * repeats by message id.
+ */
+@Component
+public class MessageOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(MessageOutboxRelay.class);
+    private static final long RELAY_LOCK_KEY = 0x6368_6174_6f75_7462L; // "chatoutb"
+    private static final int LOCKED = -1;
+    private static final int LOCK_RETRIES = 5;
+    private static final long LOCK_RETRY_DELAY_MS = 20;
+
+    private final MessageOutboxRepository outboxRepository;
+    private final MessageFanout messageFanout;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long publishTimeoutMs;
+    private final long leaseMs;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+    // true while a drain is queued but not started; requests arriving meanwhile are coalesced
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final Counter relayed;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    public MessageOutboxRelay(MessageOutboxRepository outboxRepository,
+                              MessageFanout messageFanout,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.outbox.batch-size:200}") int batchSize,
+                              @Value("${chat.outbox.publish-timeout-ms:5000}") long publishTimeoutMs,
+                              @Value("${chat.outbox.lease-ms:30000}") long leaseMs) {
+        this.outboxRepository = outboxRepository;
+        this.messageFanout = messageFanout;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.relayed = meterRegistry.counter("chat.outbox.relayed");
+        this.failed = meterRegistry.counter("chat.outbox.failed");
+        this.batchTimer = meterRegistry.timer("chat.outbox.batch");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWritten(MessageOutboxWritten event) {
+        requestDrain();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.outbox.sweep-interval-ms:5000}")
+    public void sweep() {
+        requestDrain();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(publishTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void requestDrain() {
+        if (queued.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        queued.set(false);
+        try {
+            int lockAttempts = 0;
+            while (true) {
+                Integer relayedRows = batchTimer.record(this::relayBatch);
+                if (relayedRows == null || relayedRows == 0) {
+                    return;
+                }
+                if (relayedRows == LOCKED) {
+                    // another node is claiming a batch, which takes a moment; check back briefly
+                    // before leaving the rest to that node and the sweep
+                    if (++lockAttempts > LOCK_RETRIES) return;
+                    Thread.sleep(LOCK_RETRY_DELAY_MS);
+                    continue;
+                }
+                if (relayedRows < batchSize) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Outbox relay failed, leaving rows for the next sweep: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return rows relayed, {@code 0} when nothing is left or a publish failed (stop and let the
+     * sweep retry), or {@link #LOCKED} when another node is claiming
+     */
+    private int relayBatch() {
+        List<MessageOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null) {
+            return LOCKED;
+        }
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (MessageOutbox row : batch) {
+            sends.add(publish(row));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+        List<Long> done = new ArrayList<>(batch.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            MessageOutbox row = batch.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                done.add(row.getId());
+            } catch (TimeoutException e) {
+                // still claimed: delete it when the publish does complete instead of sending it again
+                sends.get(i).whenCompleteAsync((ok, error) -> settleLate(row, error), worker);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Failed to relay outbox row {} for room {}", row.getId(), row.getRoomId(), e);
+                failedIds.add(row.getId());
+            }
+        }
+        if (!done.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(done);
+        }
+        if (!failedIds.isEmpty()) {
+            outboxRepository.release(failedIds);
+        }
+        relayed.increment(done.size());
+        failed.increment(failedIds.size());
+        return done.size() == batch.size() ? done.size() : 0;
+    }
+
+    /** @return the claimed rows, or {@code null} when another node holds the claim lock */
+    private List<MessageOutbox> claimBatch() {
+        if (!outboxRepository.tryRelayLock(RELAY_LOCK_KEY)) {
+            return null;
+        }
+        List<MessageOutbox> batch = outboxRepository.lockBatch(batchSize);
+        if (!batch.isEmpty()) {
+            outboxRepository.claim(batch.stream().map(MessageOutbox::getId).toList(), leaseMs);
+        }
+        return batch;
+    }
+
+    private void settleLate(MessageOutbox row, Throwable error) {
+        try {
+            if (error == null) {
+                outboxRepository.deleteAllByIdInBatch(List.of(row.getId()));
+                relayed.increment();
+            } else {
+                log.error("Failed to relay outbox row {} for room {}", row.getId(), row.getRoomId(), error);
+                outboxRepository.release(List.of(row.getId()));
+                failed.increment();
+            }
+        } catch (Exception e) {
+            log.warn("Could not settle outbox row {}; it is sent again once its claim expires: {}", row.getId(), e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> publish(MessageOutbox row) {
+        try {
+            return messageFanout.publish(objectMapper.readValue(row.getPayload(), MessageResponse.class));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
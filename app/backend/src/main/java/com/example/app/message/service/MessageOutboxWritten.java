@@ -0,0 +1,5 @@
+package com.example.app.message.service;
+
+/** Published inside the creating transaction; the relay drains the outbox once it commits. */
+public record MessageOutboxWritten(String roomId) {
+}
@@ -1,10 +1,18 @@
 package com.example.app.message.service;
 
+import com.example.app.common.data.Cursor;
+import com.example.app.common.data.CursorPage;
 import com.example.app.common.data.Pageing;
-import com.example.app.common.data.Specs;
 import com.example.app.message.domain.Message;
+import com.example.app.message.domain.MessageOutbox;
+import com.example.app.message.repository.MessageOutboxRepository;
 import com.example.app.message.repository.MessageRepository;
+import com.example.app.message.repository.MessageSearchHit;
 import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -13,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,11 +30,21 @@ import java.util.UUID;
 public class MessageService {
 
     private final MessageRepository messageRepository;
-    private final RedisBroadcast redisBroadcast;
-
-    public MessageService(MessageRepository messageRepository, RedisBroadcast redisBroadcast) {
+    private final MessageOutboxRepository outboxRepository;
+    private final RecentMessages recentMessages;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+
+    public MessageService(MessageRepository messageRepository,
+                          MessageOutboxRepository outboxRepository,
+                          RecentMessages recentMessages,
+                          ApplicationEventPublisher events,
+                          ObjectMapper objectMapper) {
         this.messageRepository = messageRepository;
-        this.redisBroadcast = redisBroadcast;
+        this.outboxRepository = outboxRepository;
+        this.recentMessages = recentMessages;
+        this.events = events;
+        this.objectMapper = objectMapper;
     }
 
     public List<Message> list() {
@@ -37,13 +56,44 @@ public class MessageService {
         return messageRepository.findAll(pageable);
     }
 
-    public Page<Message> search(String q, String roomId, Integer page, Integer size, String sort) {
-        Specification<Message> spec = Specification.where(Specs.textLike(q, "text"));
-        if (roomId != null && !roomId.isBlank()) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("roomId"), roomId));
-        }
+    /**
+     * With a query term, runs the ranked full-text search (the {@code sort} parameter is ignored in
+     * favour of relevance). Without one, pages the room's messages in the requested order.
+     */
+    public Page<MessageSearchHit> search(String q, String roomId, Integer page, Integer size, String sort) {
+        String room = (roomId == null || roomId.isBlank()) ? null : roomId;
         Pageable pageable = Pageing.of(page, size, sort);
-        return messageRepository.findAll(spec, pageable);
+        if (q != null && !q.isBlank()) {
+            return messageRepository.searchText(q, room, pageable);
+        }
+        Specification<Message> spec = Specification.where(null);
+        if (room != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("roomId"), room));
+        }
+        return messageRepository.findAll(spec, pageable).map(m -> new MessageSearchHit(
+                m.getId(), m.getRoomId(), m.getSenderId(), m.getText(), m.getCreatedAt(), 0, null));
+    }
+
+    /**
+     * Room history newest-first, keyed on {@code (created_at, id)}: the cost of a page does not
+     * depend on how far back the client has scrolled, and no count query is issued. The first page
+     * is normally answered from {@link RecentMessages} without touching the database.
+     */
+    public CursorPage<MessageResponse> history(String roomId, String before, Integer limit) {
+        String room = defaultRoom(roomId);
+        Cursor cursor = Cursor.decode(before);
+        int size = Pageing.limit(limit);
+        if (cursor == null) {
+            var recent = recentMessages.latest(room, size);
+            if (recent.isPresent()) {
+                return recent.get();
+            }
+        }
+        Limit fetch = Limit.of(size + 1);
+        List<Message> rows = cursor == null
+                ? messageRepository.findLatest(room, fetch)
+                : messageRepository.findBefore(room, cursor.createdAt(), cursor.uuid(), fetch);
+        return CursorPage.of(rows, size, m -> Cursor.of(m.getCreatedAt(), m.getId())).map(MessageResponse::from);
     }
 
     public Message get(UUID id) {
@@ -56,26 +106,38 @@ public class MessageService {
         message.setRoomId(defaultRoom(command.roomId()));
         message.setSenderId(command.senderId());
         message.setText(command.text());
-        message.setCreatedAt(Instant.now());
+        // Postgres keeps microseconds; truncating here keeps cursors built from the response exact.
+        message.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
 
         Message savedMessage = messageRepository.save(message);
 
-        // After saving, publish to Redis
-        MessageResponse dto = new MessageResponse(
-                savedMessage.getId(),
-                savedMessage.getRoomId(),
-                savedMessage.getSenderId(),
-                savedMessage.getText(),
-                savedMessage.getCreatedAt()
-        );
-        redisBroadcast.publish(dto);
+        // Fan-out goes through the outbox: the row commits with the message, and
+        // MessageOutboxRelay publishes it after commit, off the request thread.
+        MessageResponse response = MessageResponse.from(savedMessage);
+        outboxRepository.save(new MessageOutbox(savedMessage.getRoomId(), toJson(response)));
+        events.publishEvent(new MessageOutboxWritten(savedMessage.getRoomId()));
+        events.publishEvent(new MessageCreated(response));
 
         return savedMessage;
     }
 
     @Transactional
     public void delete(UUID id) {
-        messageRepository.deleteById(id);
+        messageRepository.findById(id).ifPresent(message -> {
+            messageRepository.delete(message);
+            recentMessages.evict(message.getRoomId());
+            // other nodes' buffers are cleared by the tombstone, relayed like a new message
+            outboxRepository.save(new MessageOutbox(message.getRoomId(), toJson(MessageFanout.tombstone(message.getRoomId(), id))));
+            events.publishEvent(new MessageOutboxWritten(message.getRoomId()));
+        });
+    }
+
+    private String toJson(MessageResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize message " + response.id(), e);
+        }
     }
 
     private Sort defaultSort() {
@@ -0,0 +1,113 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.message.web.dto.MessageResponse;
+import com.example.app.message.web.dto.StreamGap;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds the SSE stream for a room. Every message event carries its {@link Cursor} as the event
+ * id, so a client reconnecting with {@code Last-Event-ID} gets the messages it missed replayed from
+ * {@link RecentMessages} before the live feed continues.
+ */
+@Service
+public class MessageStreamService {
+
+    static final String GAP_EVENT = "gap";
+
+    private final MessageBroadcaster messageBroadcaster;
+    private final RecentMessages recentMessages;
+    private final SseFrames frames;
+    private final ObjectProvider<RoomDelivery> roomDelivery;
+
+    public MessageStreamService(MessageBroadcaster messageBroadcaster,
+                                RecentMessages recentMessages,
+                                SseFrames frames,
+                                ObjectProvider<RoomDelivery> roomDelivery) {
+        this.messageBroadcaster = messageBroadcaster;
+        this.recentMessages = recentMessages;
+        this.frames = frames;
+        this.roomDelivery = roomDelivery;
+    }
+
+    public Flux<SseFrame> open(String roomId, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return messageBroadcaster.stream(roomId);
+        }
+        return Flux.defer(() -> resume(roomId, lastEventId));
+    }
+
+    private Flux<SseFrame> resume(String roomId, String lastEventId) {
+        // Subscribe to the live feed before reading the backlog so nothing published in between is
+        // lost; anything seen in both is dropped from the live side. The live subscription only
+        // requests what the client has asked for, so until the backlog is written messages wait in
+        // the broadcaster's per-subscriber buffer and chat.stream.overflow applies as usual.
+        Sinks.Many<SseFrame> pending = Sinks.many().unicast().onBackpressureBuffer();
+        BaseSubscriber<SseFrame> live = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // no demand until the tail is subscribed
+            }
+
+            @Override
+            protected void hookOnNext(SseFrame frame) {
+                pending.tryEmitNext(frame);
+            }
+
+            @Override
+            protected void hookOnError(Throwable error) {
+                pending.tryEmitError(error);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                pending.tryEmitComplete();
+            }
+        };
+        messageBroadcaster.stream(roomId).subscribe(live);
+
+        // the backlog is read once the room is delivered here, off the thread that confirmed it
+        Set<UUID> replayed = new HashSet<>();
+        Flux<SseFrame> head = ready(roomId)
+                .publishOn(Schedulers.boundedElastic())
+                .thenMany(Flux.defer(() -> backlog(roomId, lastEventId, replayed)));
+        Flux<SseFrame> tail = pending.asFlux()
+                .doOnRequest(live::request)
+                .filter(f -> !replayed.contains(f.message().id()));
+        return Flux.concat(head, tail).doFinally(signal -> live.dispose());
+    }
+
+    private Mono<Void> ready(String roomId) {
+        RoomDelivery delivery = roomDelivery.getIfAvailable();
+        return delivery != null ? delivery.ready(roomId) : Mono.empty();
+    }
+
+    private Flux<SseFrame> backlog(String roomId, String lastEventId, Set<UUID> replayed) {
+        Optional<List<MessageResponse>> missed = decode(lastEventId).flatMap(after -> recentMessages.since(roomId, after));
+        missed.ifPresent(list -> list.forEach(m -> replayed.add(m.id())));
+        return missed
+                .map(list -> Flux.fromIterable(list).map(frames::message))
+                .orElseGet(() -> Flux.just(frames.event(GAP_EVENT, new StreamGap(roomId, lastEventId))));
+    }
+
+    private static Optional<Cursor> decode(String lastEventId) {
+        try {
+            return Optional.ofNullable(Cursor.decode(lastEventId));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
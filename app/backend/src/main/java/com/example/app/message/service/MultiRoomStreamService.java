@@ -0,0 +1,240 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.message.web.dto.MessageResponse;
+import com.example.app.message.web.dto.StreamConnected;
+import com.example.app.message.web.dto.StreamGap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One SSE connection carrying several rooms. Each room is the same per-room stream
+ * {@link MessageStreamService#open} builds (including resume from a last event id), merged into
+ * the connection and stopped individually when the room is removed. Events are not renamed: every
+ * message already carries its {@code roomId}.
+ *
+ * <p>Event ids are connection-level {@link StreamResumeToken resume tokens} holding the position of
+ * every room on the connection, stamped in write order; adding or removing a room sends a
+ * {@code rooms} event so the token follows the room set too. A client reconnecting with its last
+ * token as {@code Last-Event-ID} gets each room resumed from where it left off. A room whose
+ * subscriber buffer overflows is resumed on its own from its last written position; a room that
+ * fails otherwise gets a {@code room-closed} event and is dropped, and the rest of the connection
+ * carries on.
+ *
+ * <p>Connections are registered on the node that holds them, so add/remove calls must reach that
+ * node; an unknown connection id gets a 404 and the client reconnects with its full room set.
+ */
+@Service
+public class MultiRoomStreamService {
+
+    static final String CONNECTED_EVENT = "connected";
+    static final String ROOMS_EVENT = "rooms";
+    static final String ROOM_CLOSED_EVENT = "room-closed";
+    // position of a room with nothing written yet: resume from the time it was joined
+    private static final UUID NO_MESSAGE = new UUID(0, 0);
+    private static final int PREFETCH_PER_ROOM = 32;
+
+    private final MessageStreamService messageStreamService;
+    private final SseFrames frames;
+    private final int maxRooms;
+    private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+
+    public MultiRoomStreamService(MessageStreamService messageStreamService,
+                                  SseFrames frames,
+                                  @Value("${chat.stream.max-rooms-per-connection:100}") int maxRooms) {
+        this.messageStreamService = messageStreamService;
+        this.frames = frames;
+        this.maxRooms = maxRooms;
+    }
+
+    /**
+     * @param rooms room id to the last event id seen in it, or {@code null} to start live
+     * @param lastEventId the last event id of a previous connection; a valid resume token replaces
+     *                    {@code rooms}
+     */
+    public Flux<SseFrame> open(UUID owner, Map<String, String> rooms, String lastEventId) {
+        Map<String, String> start = StreamResumeToken.decode(lastEventId).orElse(rooms);
+        if (start.isEmpty()) {
+            throw new IllegalArgumentException("rooms must name at least one room");
+        }
+        if (start.size() > maxRooms) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxRooms + " rooms per stream");
+        }
+        return Flux.defer(() -> {
+            Connection connection = new Connection(UUID.randomUUID().toString(), owner);
+            connections.put(connection.id, connection);
+            start.forEach((roomId, after) -> connection.add(roomId, after, false));
+            RoomFrame connected = new RoomFrame(null, frames.event(CONNECTED_EVENT, connection.describe()));
+            return Flux.concat(Flux.just(connected),
+                            connection.feeds.asFlux().flatMap(feed -> feed, maxRooms + 1, PREFETCH_PER_ROOM))
+                    // after the merge, so each token only covers frames written before it
+                    .map(connection::stamp)
+                    .doFinally(signal -> {
+                        connections.remove(connection.id);
+                        connection.close();
+                    });
+        });
+    }
+
+    public void addRoom(String connectionId, UUID owner, String roomId, String lastEventId) {
+        Connection connection = find(connectionId, owner);
+        if (!connection.has(roomId) && connection.roomCount() >= maxRooms) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxRooms + " rooms per stream");
+        }
+        connection.add(roomId, lastEventId, true);
+    }
+
+    public void removeRoom(String connectionId, UUID owner, String roomId) {
+        find(connectionId, owner).remove(roomId);
+    }
+
+    /**
+     * @throws ResponseStatusException 404 unless the connection exists and was opened by
+     *                                 {@code owner}; another user's connection looks the same as a
+     *                                 missing one, so connection ids can't be probed
+     */
+    private Connection find(String connectionId, UUID owner) {
+        Connection connection = connections.get(connectionId);
+        if (connection == null || owner == null || !connection.owner.equals(owner)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stream connection not found");
+        }
+        return connection;
+    }
+
+    /** A frame and the room it belongs to, or {@code null} for connection events. */
+    private record RoomFrame(String roomId, SseFrame frame) {
+    }
+
+    private final class Connection {
+        final String id;
+        final UUID owner;
+        // room streams to merge into the connection, plus one-frame feeds for connection events
+        final Sinks.Many<Flux<RoomFrame>> feeds = Sinks.many().unicast().onBackpressureBuffer();
+        // emitting each room's stop signal ends that room's stream
+        final Map<String, Sinks.Empty<Void>> rooms = new ConcurrentHashMap<>();
+        // last position written per room, the content of the resume token
+        final Map<String, Cursor> positions = new ConcurrentHashMap<>();
+        // not synchronized: emitting a feed can subscribe it on this thread, and a resume reads the
+        // database, which would pin a virtual thread inside a monitor
+        final ReentrantLock lock = new ReentrantLock();
+
+        Connection(String id, UUID owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+
+        boolean has(String roomId) {
+            return rooms.containsKey(roomId);
+        }
+
+        int roomCount() {
+            return rooms.size();
+        }
+
+        StreamConnected describe() {
+            return new StreamConnected(id, new ArrayList<>(rooms.keySet()));
+        }
+
+        void add(String roomId, String lastEventId, boolean announce) {
+            lock.lock();
+            try {
+                if (rooms.containsKey(roomId)) {
+                    return;
+                }
+                Sinks.Empty<Void> stop = Sinks.empty();
+                rooms.put(roomId, stop);
+                positions.put(roomId, startingAt(lastEventId));
+                feeds.tryEmitNext(roomFeed(roomId, lastEventId, stop));
+                if (announce) {
+                    announce();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(String roomId) {
+            lock.lock();
+            try {
+                Sinks.Empty<Void> stop = rooms.remove(roomId);
+                if (stop != null) {
+                    positions.remove(roomId);
+                    stop.tryEmitEmpty();
+                    announce();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // called under the lock: the unicast sink takes one emitter at a time
+        private void announce() {
+            feeds.tryEmitNext(Flux.just(new RoomFrame(null, frames.event(ROOMS_EVENT, describe()))));
+        }
+
+        private Flux<RoomFrame> roomFeed(String roomId, String lastEventId, Sinks.Empty<Void> stop) {
+            return messageStreamService.open(roomId, lastEventId)
+                    .map(frame -> new RoomFrame(roomId, frame))
+                    .onErrorResume(error -> {
+                        Cursor at = positions.get(roomId);
+                        if (Exceptions.isOverflow(error) && at != null) {
+                            // frames still queued in the merge are replayed again; clients dedupe by id
+                            return Flux.defer(() -> roomFeed(roomId, at.encode(), stop));
+                        }
+                        if (rooms.remove(roomId, stop)) {
+                            positions.remove(roomId);
+                        }
+                        String last = at != null ? at.encode() : lastEventId;
+                        return Flux.just(new RoomFrame(null, frames.event(ROOM_CLOSED_EVENT, new StreamGap(roomId, last))));
+                    })
+                    .takeUntilOther(stop.asMono());
+        }
+
+        SseFrame stamp(RoomFrame rf) {
+            if (rf.roomId() != null) {
+                MessageResponse m = rf.frame().message();
+                // a gap means the client reloads the room, so it is caught up as of now
+                Cursor at = m != null ? Cursor.of(m.createdAt(), m.id()) : Cursor.of(Instant.now(), NO_MESSAGE);
+                // a removed room's last frames must not bring it back into the token
+                positions.computeIfPresent(rf.roomId(), (room, before) -> at);
+            }
+            return frames.withId(rf.frame(), StreamResumeToken.encode(positions));
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                rooms.values().forEach(Sinks.Empty::tryEmitEmpty);
+                rooms.clear();
+                feeds.tryEmitComplete();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static Cursor startingAt(String lastEventId) {
+        try {
+            Cursor after = Cursor.decode(lastEventId);
+            if (after != null) {
+                after.uuid();
+                return after;
+            }
+        } catch (IllegalArgumentException e) {
+            // an unusable id gets a gap event from the room stream
+        }
+        return Cursor.of(Instant.now(), NO_MESSAGE);
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.common.data.CursorPage;
+import com.example.app.message.repository.MessageRepository;
+import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded per-room ring buffers of the most recent messages, so opening a room does not hit
+ * Postgres. Buffers are fed by {@link MessageBroadcaster#emit} and by this node's own commits,
+ * warmed from the database on first access, and evicted least-recently-used once the estimated
+ * footprint exceeds {@code chat.recent.max-bytes}. When the fan-out transport only delivers some rooms to this node
+ * (see {@link #deliveredRooms}), other rooms are served straight from the database instead.
+ */
+@Component
+public class RecentMessages {
+
+    static final Comparator<MessageResponse> CHRONOLOGICAL =
+            Comparator.comparing(MessageResponse::createdAt).thenComparing(MessageResponse::id);
+
+    private final MessageRepository messageRepository;
+    private final int perRoom;
+    private final long maxBytes;
+    private final AtomicLong bytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    // rooms the transport currently delivers here; null while it delivers every room
+    private volatile Set<String> delivered;
+
+    // access-ordered: iteration starts at the least recently used room
+    private final LinkedHashMap<String, RoomBuffer> rooms = new LinkedHashMap<>(256, 0.75f, true);
+
+    public RecentMessages(MessageRepository messageRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${chat.recent.per-room:200}") int perRoom,
+                          @Value("${chat.recent.max-bytes:67108864}") long maxBytes) {
+        this.messageRepository = messageRepository;
+        this.perRoom = perRoom;
+        this.maxBytes = maxBytes;
+        this.hits = meterRegistry.counter("chat.recent.requests", "result", "hit");
+        this.misses = meterRegistry.counter("chat.recent.requests", "result", "miss");
+        Gauge.builder("chat.recent.rooms", rooms, RecentMessages::roomCount).register(meterRegistry);
+        Gauge.builder("chat.recent.bytes", bytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Restricts buffering to rooms the transport delivers to this node; a buffer for any other room
+     * would stop receiving new messages and go stale. {@code rooms} is a live view owned by the
+     * caller, which must {@link #evict} a room when it stops being delivered.
+     */
+    public void deliveredRooms(Set<String> rooms) {
+        this.delivered = rooms;
+    }
+
+    /** Records a broadcast message. Rooms nobody has read recently are not buffered. */
+    public void append(MessageResponse message) {
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            buffer = rooms.get(message.roomId());
+        }
+        if (buffer != null) {
+            account(message.roomId(), buffer, buffer.add(message));
+        }
+    }
+
+    /**
+     * Buffers a message created on this node as soon as it commits, so its author's next history
+     * read includes it even before the fan-out has delivered it back.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCreated(MessageCreated event) {
+        append(event.message());
+    }
+
+    /**
+     * Newest-first page of the latest {@code limit} messages, or empty when the buffer cannot
+     * answer exactly (limit larger than what is retained, or a room not delivered to this node) and
+     * the caller must query the database.
+     */
+    public Optional<CursorPage<MessageResponse>> latest(String roomId, int limit) {
+        if (limit > perRoom || !isDelivered(roomId)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        return Optional.of(warm(roomId).page(limit));
+    }
+
+    /**
+     * Messages newer than {@code after}, oldest first, for replaying a resumed stream. Empty when
+     * {@code after} is older than everything retained for the room, i.e. the gap cannot be filled
+     * from memory.
+     */
+    public Optional<List<MessageResponse>> since(String roomId, Cursor after) {
+        if (!isDelivered(roomId)) {
+            // answer from a one-off buffer that is not kept
+            misses.increment();
+            RoomBuffer detached = new RoomBuffer();
+            detached.load(loadLatest(roomId));
+            return detached.since(after);
+        }
+        return warm(roomId).since(after);
+    }
+
+    public void evict(String roomId) {
+        RoomBuffer removed;
+        synchronized (rooms) {
+            removed = rooms.remove(roomId);
+        }
+        if (removed != null) {
+            bytes.addAndGet(-removed.bytes());
+        }
+    }
+
+    private RoomBuffer warm(String roomId) {
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            buffer = rooms.computeIfAbsent(roomId, k -> new RoomBuffer());
+        }
+        if (!buffer.isLoaded()) {
+            misses.increment();
+            // query outside any lock; concurrent warmers just merge the same rows twice
+            account(roomId, buffer, buffer.load(loadLatest(roomId)));
+        } else {
+            hits.increment();
+        }
+        return buffer;
+    }
+
+    private List<MessageResponse> loadLatest(String roomId) {
+        return messageRepository.findLatest(roomId, Limit.of(perRoom)).stream()
+                .map(MessageResponse::from)
+                .toList();
+    }
+
+    private boolean isDelivered(String roomId) {
+        Set<String> rooms = delivered;
+        return rooms == null || rooms.contains(roomId);
+    }
+
+    private void account(String roomId, RoomBuffer buffer, long delta) {
+        synchronized (rooms) {
+            // a buffer evicted meanwhile was already subtracted in full
+            if (rooms.get(roomId) != buffer) return;
+            bytes.addAndGet(delta);
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        while (bytes.get() > maxBytes) {
+            RoomBuffer eldest;
+            synchronized (rooms) {
+                Iterator<Map.Entry<String, RoomBuffer>> it = rooms.entrySet().iterator();
+                if (!it.hasNext()) return;
+                eldest = it.next().getValue();
+                it.remove();
+            }
+            bytes.addAndGet(-eldest.bytes());
+        }
+    }
+
+    private static int roomCount(Map<String, RoomBuffer> rooms) {
+        synchronized (rooms) {
+            return rooms.size();
+        }
+    }
+
+    static long estimateBytes(MessageResponse m) {
+        // object headers + UUID + Instant + boxed Long, plus UTF-16 string payloads
+        return 160L + 2L * ((m.text() == null ? 0 : m.text().length()) + (m.roomId() == null ? 0 : m.roomId().length()));
+    }
+
+    private final class RoomBuffer {
+        // oldest first; never longer than perRoom
+        private final ArrayDeque<MessageResponse> messages = new ArrayDeque<>();
+        private final Set<UUID> ids = new LinkedHashSet<>();
+        private boolean loaded;
+        // true when the room has no messages older than the buffer's oldest entry
+        private boolean complete;
+        private long bytes;
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        /** @return the change in estimated footprint */
+        synchronized long add(MessageResponse message) {
+            long before = bytes;
+            if (ids.add(message.id())) {
+                if (!messages.isEmpty() && CHRONOLOGICAL.compare(message, messages.peekLast()) < 0) {
+                    // clock skew between nodes can deliver slightly out of order
+                    List<MessageResponse> sorted = new ArrayList<>(messages);
+                    sorted.add(message);
+                    sorted.sort(CHRONOLOGICAL);
+                    messages.clear();
+                    messages.addAll(sorted);
+                } else {
+                    messages.addLast(message);
+                }
+                bytes += estimateBytes(message);
+                trim();
+            }
+            return bytes - before;
+        }
+
+        /** Merges database rows (newest first) with anything appended while they were loading. */
+        synchronized long load(List<MessageResponse> newestFirst) {
+            long before = bytes;
+            if (!loaded) {
+                TreeSet<MessageResponse> merged = new TreeSet<>(CHRONOLOGICAL);
+                merged.addAll(messages);
+                merged.addAll(newestFirst);
+                messages.clear();
+                ids.clear();
+                bytes = 0;
+                for (MessageResponse m : merged) {
+                    messages.addLast(m);
+                    ids.add(m.id());
+                    bytes += estimateBytes(m);
+                }
+                complete = newestFirst.size() < perRoom;
+                loaded = true;
+                trim();
+            }
+            return bytes - before;
+        }
+
+        synchronized CursorPage<MessageResponse> page(int limit) {
+            List<MessageResponse> content = new ArrayList<>(Math.min(limit, messages.size()));
+            Iterator<MessageResponse> newest = messages.descendingIterator();
+            while (content.size() < limit && newest.hasNext()) {
+                content.add(newest.next());
+            }
+            boolean more = newest.hasNext() || (!complete && !content.isEmpty());
+            MessageResponse last = content.isEmpty() ? null : content.get(content.size() - 1);
+            return new CursorPage<>(content, more ? Cursor.of(last.createdAt(), last.id()) : null);
+        }
+
+        synchronized Optional<List<MessageResponse>> since(Cursor after) {
+            List<MessageResponse> newer = new ArrayList<>();
+            boolean found = false;
+            for (MessageResponse m : messages) {
+                if (found) {
+                    newer.add(m);
+                } else if (m.id().toString().equals(after.id())) {
+                    found = true;
+                }
+            }
+            if (found) {
+                return Optional.of(newer);
+            }
+            // the acknowledged message is not retained: only safe if it predates a complete buffer
+            // or falls inside the retained window (e.g. it was deleted)
+            MessageResponse oldest = messages.peekFirst();
+            boolean coversGap = complete || (oldest != null && after.createdAt().isAfter(oldest.createdAt()));
+            if (!coversGap) {
+                return Optional.empty();
+            }
+            for (MessageResponse m : messages) {
+                if (m.createdAt().isAfter(after.createdAt())) {
+                    newer.add(m);
+                }
+            }
+            return Optional.of(newer);
+        }
+
+        private void trim() {
+            while (messages.size() > perRoom) {
+                MessageResponse dropped = messages.pollFirst();
+                ids.remove(dropped.id());
+                bytes -= estimateBytes(dropped);
+                complete = false;
+            }
+        }
+    }
+}
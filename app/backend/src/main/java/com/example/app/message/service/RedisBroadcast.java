@@ -1,49 +1,74 @@
 package com.example.app.message.service;
 
 import com.example.app.message.web.dto.MessageResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pub/sub transport: one {@code chat:<room>} channel per room, subscribed only while the room has
+ * local subscribers (see {@link RedisRoomSubscriptions}). Fire-and-forget, so a node that is
+ * paused or restarting misses what was published meanwhile; see {@link RedisStreamBroadcast}.
+ */
 @Component
-public class RedisBroadcast implements MessageListener {
+@ConditionalOnProperty(name = "chat.fanout.transport", havingValue = "pubsub", matchIfMissing = true)
+public class RedisBroadcast implements MessageFanout, MessageListener {
     private static final Logger log = LoggerFactory.getLogger(RedisBroadcast.class);
-    private final StringRedisTemplate redis;
+    static final String CHANNEL_PREFIX = "chat:";
+    private final RedisTemplate<String, byte[]> redis;
     private final MessageBroadcaster localBroadcaster;
-    private final ObjectMapper objectMapper;
+    private final BroadcastCodec codec;
+    private final InboundDispatcher dispatcher;
+    // null unless chat.fanout.pubsub.pipeline.enabled
+    private final RedisPublishPipeline pipeline;
 
-    public RedisBroadcast(StringRedisTemplate redis, MessageBroadcaster localBroadcaster) {
-        this.redis = redis;
+    public RedisBroadcast(RedisTemplate<String, byte[]> binaryRedisTemplate,
+                          MessageBroadcaster localBroadcaster,
+                          BroadcastCodec codec,
+                          InboundDispatcher dispatcher,
+                          ObjectProvider<RedisPublishPipeline> pipeline) {
+        this.redis = binaryRedisTemplate;
         this.localBroadcaster = localBroadcaster;
-        this.objectMapper = new ObjectMapper();
-        // Register JavaTimeModule to handle Instant, ZonedDateTime, etc.
-        this.objectMapper.findAndRegisterModules();
+        this.codec = codec;
+        this.dispatcher = dispatcher;
+        this.pipeline = pipeline.getIfAvailable();
     }
 
-    public void publish(MessageResponse dto) {
+    @Override
+    public CompletableFuture<Void> publish(MessageResponse dto) {
         try {
-            String channel = "chat:" + dto.roomId();
-            String json = objectMapper.writeValueAsString(dto);
-            redis.convertAndSend(channel, json);
+            String channel = CHANNEL_PREFIX + dto.roomId();
+            if (pipeline != null) {
+                return pipeline.submit(channel, codec.encode(dto));
+            }
+            redis.convertAndSend(channel, codec.encode(dto));
+            return CompletableFuture.completedFuture(null);
         } catch (Exception e) {
-            log.error("Failed to publish message to Redis channel: {}", dto, e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
-        try {
-            String json = new String(message.getBody());
-            MessageResponse dto = objectMapper.readValue(json, MessageResponse.class);
-            // Emit to local subscribers
-            localBroadcaster.emit(dto.roomId(), dto);
-        } catch (Exception e) {
-            log.error("Failed to process message from Redis: {}", new String(message.getBody()), e);
-        }
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        byte[] body = message.getBody();
+        // channels are chat:<room>; decoding happens on the room's lane, off the listener thread
+        dispatcher.dispatch(channel.substring(CHANNEL_PREFIX.length()), () -> {
+            try {
+                MessageResponse dto = codec.decode(body);
+                // Emit to local subscribers
+                localBroadcaster.emit(dto.roomId(), dto);
+            } catch (Exception e) {
+                log.error("Failed to process message from Redis channel {} ({} bytes)", channel, body.length, e);
+            }
+        });
     }
 }
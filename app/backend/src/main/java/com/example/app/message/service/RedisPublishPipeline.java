@@ -0,0 +1,137 @@
+package com.example.app.message.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional micro-batching in front of Redis {@code PUBLISH}. Publishes are queued and sent by one
+ * flusher thread as a pipeline once {@code batch-size} are waiting or {@code linger-ms} has passed
+ * since the first, so a burst costs one round trip instead of one per message. A single thread
+ * draining a FIFO queue keeps every room's messages in publish order.
+ *
+ * <p>The queue holds at most {@code queue-capacity} messages. When Redis is slow and it fills up,
+ * {@link #submit} fails immediately instead of blocking the caller; the outbox relay then keeps
+ * the rows and retries them on its next sweep.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.fanout.pubsub.pipeline.enabled", havingValue = "true")
+public class RedisPublishPipeline {
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+
+    public RedisPublishPipeline(RedisTemplate<String, byte[]> binaryRedisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.fanout.pubsub.pipeline.queue-capacity:10000}") int queueCapacity,
+                                @Value("${chat.fanout.pubsub.pipeline.batch-size:256}") int batchSize,
+                                @Value("${chat.fanout.pubsub.pipeline.linger-ms:2}") long lingerMs) {
+        this.redis = binaryRedisTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.rejected = meterRegistry.counter("chat.fanout.pipeline.rejected");
+        this.batchSizes = DistributionSummary.builder("chat.fanout.pipeline.batch.size").register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.fanout.pipeline.flush").register(meterRegistry);
+        Gauge.builder("chat.fanout.pipeline.queue", queue, BlockingQueue::size).register(meterRegistry);
+        this.flusher = new Thread(this::run, "redis-publish-pipeline");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public CompletableFuture<Void> submit(String channel, byte[] payload) {
+        Pending pending = new Pending(channel.getBytes(StandardCharsets.UTF_8), payload, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Redis publish queue is full"));
+        }
+        return pending.future;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(p -> p.future.completeExceptionally(new RejectedExecutionException("Redis publish pipeline stopped")));
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutting down: flush what was already taken off the queue
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        Timer.Sample sample = Timer.start();
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (Pending p : batch) {
+                    connection.publish(p.channel, p.payload);
+                }
+                return null;
+            });
+            batch.forEach(p -> p.future.complete(null));
+        } catch (Exception e) {
+            batch.forEach(p -> p.future.completeExceptionally(e));
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private record Pending(byte[] channel, byte[] payload, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.app.message.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Subscribes this node to {@code chat:<room>} only while the room has local SSE subscribers, so a
+ * node receives and decodes just the rooms it serves instead of every room in the cluster. The
+ * channel is dropped {@code chat.fanout.pubsub.unsubscribe-grace-ms} after the last subscriber
+ * leaves, which keeps reconnecting clients from churning SUBSCRIBE/UNSUBSCRIBE.
+ *
+ * <p>{@link #ready} completes once Redis has confirmed the room's channel (or after
+ * {@code chat.fanout.pubsub.subscribe-timeout-ms}). A resuming client reads its backlog only then,
+ * since anything published before the channel is live would otherwise reach neither the backlog
+ * read nor the live feed. Nothing waits on the subscribing thread.
+ *
+ * <p>All changes run on one thread, and each one re-reads the room's current state from
+ * {@link MessageBroadcaster}, so the order in which events arrive does not matter.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.fanout.transport", havingValue = "pubsub", matchIfMissing = true)
+public class RedisRoomSubscriptions implements RoomDelivery {
+    private static final Logger log = LoggerFactory.getLogger(RedisRoomSubscriptions.class);
+
+    private final RedisMessageListenerContainer container;
+    private final RedisBroadcast listener;
+    private final MessageBroadcaster localBroadcaster;
+    private final RecentMessages recentMessages;
+    private final long graceMs;
+    private final long subscribeTimeoutMs;
+    private final ChannelListener channelListener = new ChannelListener();
+    private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+    // rooms subscribed or being subscribed; completed once Redis confirms the channel
+    private final Map<String, CompletableFuture<Void>> confirmations = new ConcurrentHashMap<>();
+    // touched only from the executor thread
+    private final Map<String, ScheduledFuture<?>> pendingUnsubscribes = new HashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "redis-room-subscriptions");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Counter subscribes;
+    private final Counter unsubscribes;
+    private final Counter confirmTimeouts;
+
+    public RedisRoomSubscriptions(RedisMessageListenerContainer container,
+                                  RedisBroadcast listener,
+                                  MessageBroadcaster localBroadcaster,
+                                  RecentMessages recentMessages,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.fanout.pubsub.unsubscribe-grace-ms:30000}") long graceMs,
+                                  @Value("${chat.fanout.pubsub.subscribe-timeout-ms:2000}") long subscribeTimeoutMs) {
+        this.container = container;
+        this.listener = listener;
+        this.localBroadcaster = localBroadcaster;
+        this.recentMessages = recentMessages;
+        this.graceMs = graceMs;
+        this.subscribeTimeoutMs = subscribeTimeoutMs;
+        this.subscribes = meterRegistry.counter("chat.fanout.subscription.changes", "op", "subscribe");
+        this.unsubscribes = meterRegistry.counter("chat.fanout.subscription.changes", "op", "unsubscribe");
+        this.confirmTimeouts = meterRegistry.counter("chat.fanout.subscription.confirm.timeouts");
+        Gauge.builder("chat.fanout.subscriptions", subscribed, Set::size).register(meterRegistry);
+        recentMessages.deliveredRooms(subscribed);
+    }
+
+    @EventListener
+    public void onInterestChanged(RoomInterestChanged event) {
+        String room = event.roomId();
+        if (localBroadcaster.hasSubscribers(room)) {
+            // created before reconcile runs, so the confirmation cannot arrive before it is awaited
+            confirmations.computeIfAbsent(room, r -> new CompletableFuture<>());
+        }
+        executor.execute(() -> reconcile(room));
+    }
+
+    @Override
+    public Mono<Void> ready(String roomId) {
+        // the caller subscribed to the room first, so reconcile is on its way if not done already
+        CompletableFuture<Void> confirmed = confirmations.computeIfAbsent(roomId, r -> new CompletableFuture<>());
+        return Mono.fromFuture(confirmed, true)
+                .timeout(Duration.ofMillis(subscribeTimeoutMs))
+                .onErrorResume(TimeoutException.class, e -> {
+                    confirmTimeouts.increment();
+                    log.warn("Redis did not confirm {} within {} ms; a resuming client may miss messages published meanwhile",
+                            topic(roomId), subscribeTimeoutMs);
+                    return Mono.empty();
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void reconcile(String room) {
+        if (localBroadcaster.hasSubscribers(room)) {
+            ScheduledFuture<?> pending = pendingUnsubscribes.remove(room);
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            if (!subscribed.contains(room)) {
+                container.addMessageListener(channelListener, topic(room));
+                subscribed.add(room);
+                subscribes.increment();
+            }
+        } else if (subscribed.contains(room) && !pendingUnsubscribes.containsKey(room)) {
+            pendingUnsubscribes.put(room, executor.schedule(() -> expire(room), graceMs, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void expire(String room) {
+        pendingUnsubscribes.remove(room);
+        // removed before the check: a subscriber arriving from here on waits for a new confirmation
+        confirmations.remove(room);
+        if (localBroadcaster.hasSubscribers(room) || !subscribed.contains(room)) {
+            if (subscribed.contains(room)) {
+                // staying subscribed, so the channel is still confirmed
+                confirmations.computeIfAbsent(room, r -> new CompletableFuture<>()).complete(null);
+            }
+            return;
+        }
+        try {
+            container.removeMessageListener(channelListener, topic(room));
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe from {}: {}", topic(room), e.getMessage());
+        }
+        subscribed.remove(room);
+        // nothing feeds the room's buffer any more
+        recentMessages.evict(room);
+        unsubscribes.increment();
+    }
+
+    /** Hands messages to {@link RedisBroadcast} and completes confirmations as channels go live. */
+    private final class ChannelListener implements MessageListener, SubscriptionListener {
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            listener.onMessage(message, pattern);
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            String room = new String(channel, StandardCharsets.UTF_8).substring(RedisBroadcast.CHANNEL_PREFIX.length());
+            CompletableFuture<Void> confirmed = confirmations.get(room);
+            if (confirmed != null) {
+                confirmed.complete(null);
+            }
+        }
+    }
+
+    private static ChannelTopic topic(String room) {
+        return new ChannelTopic(RedisBroadcast.CHANNEL_PREFIX + room);
+    }
+}
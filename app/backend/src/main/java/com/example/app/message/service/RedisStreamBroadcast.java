@@ -0,0 +1,119 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamReadRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redis Streams transport. Messages are appended to {@code chat:stream:<shard>} (room-hashed, so
+ * per-room order holds) and trimmed with {@code MAXLEN ~}. Every node reads all shards with batched
+ * {@code XREAD}s and tracks its own last-read id, so a node that stalls briefly picks up where it
+ * left off instead of losing messages.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.fanout.transport", havingValue = "streams")
+public class RedisStreamBroadcast implements MessageFanout {
+    private static final Logger log = LoggerFactory.getLogger(RedisStreamBroadcast.class);
+    private static final String KEY_PREFIX = "chat:stream:";
+    private static final String FIELD_ROOM = "room";
+    private static final String FIELD_PAYLOAD = "payload";
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final MessageBroadcaster localBroadcaster;
+    private final BroadcastCodec codec;
+    private final InboundDispatcher dispatcher;
+    private final int shards;
+    private final long maxLen;
+    private final StreamMessageListenerContainer<String, MapRecord<String, String, byte[]>> container;
+
+    public RedisStreamBroadcast(RedisTemplate<String, byte[]> binaryRedisTemplate,
+                                RedisConnectionFactory connectionFactory,
+                                MessageBroadcaster localBroadcaster,
+                                BroadcastCodec codec,
+                                InboundDispatcher dispatcher,
+                                @Value("${chat.fanout.streams.shards:8}") int shards,
+                                @Value("${chat.fanout.streams.max-len:100000}") long maxLen,
+                                @Value("${chat.fanout.streams.batch-size:200}") int batchSize,
+                                @Value("${chat.fanout.streams.poll-timeout-ms:1000}") long pollTimeoutMs) {
+        this.redis = binaryRedisTemplate;
+        this.localBroadcaster = localBroadcaster;
+        this.codec = codec;
+        this.dispatcher = dispatcher;
+        this.shards = shards;
+        this.maxLen = maxLen;
+        this.container = StreamMessageListenerContainer.create(connectionFactory,
+                StreamMessageListenerContainerOptions.builder()
+                        .batchSize(batchSize)
+                        .pollTimeout(Duration.ofMillis(pollTimeoutMs))
+                        .<String, byte[]>hashValueSerializer(RedisSerializer.byteArray())
+                        .errorHandler(e -> log.warn("Redis stream read failed, retrying: {}", e.getMessage()))
+                        .build());
+    }
+
+    @PostConstruct
+    void start() {
+        for (int shard = 0; shard < shards; shard++) {
+            // lastConsumed() without a consumer group: start at the tail, then continue from the
+            // last id this node has read
+            container.register(StreamReadRequest.builder(StreamOffset.create(KEY_PREFIX + shard, ReadOffset.lastConsumed()))
+                    .cancelOnError(e -> false)
+                    .build(), this::onRecord);
+        }
+        container.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        container.stop();
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(MessageResponse dto) {
+        try {
+            String key = KEY_PREFIX + Math.floorMod(dto.roomId().hashCode(), shards);
+            MapRecord<String, String, byte[]> record = StreamRecords.newRecord()
+                    .in(key)
+                    .ofMap(Map.of(FIELD_ROOM, dto.roomId().getBytes(StandardCharsets.UTF_8), FIELD_PAYLOAD, codec.encode(dto)));
+            redis.execute((RedisCallback<Object>) connection -> connection.streamCommands().xAdd(
+                    record.serialize(RedisSerializer.string(), RedisSerializer.string(), RedisSerializer.byteArray()),
+                    XAddOptions.maxlen(maxLen).approximateTrimming(true)));
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void onRecord(MapRecord<String, String, byte[]> record) {
+        String room = new String(record.getValue().get(FIELD_ROOM), StandardCharsets.UTF_8);
+        dispatcher.dispatchOrWait(room, () -> {
+            try {
+                MessageResponse dto = codec.decode(record.getValue().get(FIELD_PAYLOAD));
+                localBroadcaster.emit(dto.roomId(), dto);
+            } catch (Exception e) {
+                log.error("Failed to process message from Redis stream {}", record.getId(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.app.message.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Implemented by a fan-out transport that starts delivering a room to this node only after the
+ * room gains a local subscriber. {@link MessageStreamService} waits on it before reading a resuming
+ * client's backlog, so nothing published in between is missed by both the backlog and the live
+ * feed. Transports that deliver every room all the time do not provide one.
+ */
+public interface RoomDelivery {
+
+    /** Completes once messages published to {@code roomId} reach this node, or when waiting longer is pointless. */
+    Mono<Void> ready(String roomId);
+}
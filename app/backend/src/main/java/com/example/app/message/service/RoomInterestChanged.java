@@ -0,0 +1,10 @@
+package com.example.app.message.service;
+
+/**
+ * A room gained a local subscriber or lost its last one. Listeners check
+ * {@link MessageBroadcaster#hasSubscribers} for the current state, so events that race each other
+ * cannot leave a stale result behind. The event is handled on the subscribing thread, so listeners
+ * must not block; a transport that needs time to start delivering exposes {@link RoomDelivery}.
+ */
+public record RoomInterestChanged(String roomId) {
+}
@@ -0,0 +1,13 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+
+/**
+ * A complete, already encoded SSE frame ({@code id:}/{@code event:}/{@code data:} lines plus the
+ * terminating blank line). Built once per message and node by {@link SseFrames}, then written as is
+ * to every subscriber of the room.
+ *
+ * @param message the message carried, or {@code null} for control events such as a gap
+ */
+public record SseFrame(MessageResponse message, byte[] bytes) {
+}
@@ -0,0 +1,71 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes SSE frames in the same layout Spring's {@code SseEmitter} writes, using the application
+ * {@link ObjectMapper} so the JSON matches the REST responses. Jackson escapes line breaks inside
+ * strings, so the payload always fits a single {@code data:} line.
+ */
+@Component
+public class SseFrames {
+
+    private final ObjectMapper objectMapper;
+
+    public SseFrames(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** A message event; its id is the message's {@link Cursor}, used for resuming. */
+    public SseFrame message(MessageResponse message) {
+        return new SseFrame(message, encode(Cursor.of(message.createdAt(), message.id()).encode(), null, message));
+    }
+
+    public SseFrame event(String name, Object data) {
+        return new SseFrame(null, encode(null, name, data));
+    }
+
+    /**
+     * {@code frame} with its id line replaced by {@code id}; the rest of the encoded frame is
+     * copied as is, so a shared frame can carry a per-connection id without encoding it again.
+     */
+    public SseFrame withId(SseFrame frame, String id) {
+        byte[] bytes = frame.bytes();
+        int from = 0;
+        if (bytes.length > 3 && bytes[0] == 'i' && bytes[1] == 'd' && bytes[2] == ':') {
+            while (bytes[from] != '\n') from++;
+            from++;
+        }
+        byte[] idLine = ("id:" + id + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[idLine.length + bytes.length - from];
+        System.arraycopy(idLine, 0, out, 0, idLine.length);
+        System.arraycopy(bytes, from, out, idLine.length, bytes.length - from);
+        return new SseFrame(frame.message(), out);
+    }
+
+    private byte[] encode(String id, String event, Object data) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            if (id != null) {
+                out.write(("id:" + id + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            if (event != null) {
+                out.write(("event:" + event + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.write("data:".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(data));
+            out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.app.message.web;
 
+import com.example.app.common.web.CursorResponse;
+import com.example.app.common.web.CursorResponses;
 import com.example.app.common.web.PageResponse;
 import com.example.app.common.web.PageResponses;
 import com.example.app.message.domain.Message;
+import com.example.app.message.repository.MessageSearchHit;
+import com.example.app.message.repository.MessageSearchRepository;
 import com.example.app.message.service.MessageCreateCommand;
 import com.example.app.message.service.MessageService;
 import com.example.app.message.web.dto.MessageCreateRequest;
 import com.example.app.message.web.dto.MessageResponse;
+import com.example.app.message.web.dto.MessageSearchResponse;
 import com.example.app.user.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -24,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.HtmlUtils;
 
 import java.util.List;
 import java.util.UUID;
@@ -58,13 +64,20 @@ public class MessageController {
     }
 
     @GetMapping("/search")
-    public PageResponse<MessageResponse> search(@RequestParam(required = false) String q,
-                                                @RequestParam(required = false) String roomId,
-                                                @RequestParam(required = false) Integer page,
-                                                @RequestParam(required = false) Integer size,
-                                                @RequestParam(required = false) String sort) {
-        Page<Message> result = messageService.search(q, roomId, page, size, sort);
-        return PageResponses.from(result.map(this::toResponse));
+    public PageResponse<MessageSearchResponse> search(@RequestParam(required = false) String q,
+                                                      @RequestParam(required = false) String roomId,
+                                                      @RequestParam(required = false) Integer page,
+                                                      @RequestParam(required = false) Integer size,
+                                                      @RequestParam(required = false) String sort) {
+        Page<MessageSearchHit> result = messageService.search(q, roomId, page, size, sort);
+        return PageResponses.from(result.map(this::toSearchResponse));
+    }
+
+    @GetMapping("/rooms/{roomId}/history")
+    public CursorResponse<MessageResponse> history(@PathVariable String roomId,
+                                                   @RequestParam(required = false) String before,
+                                                   @RequestParam(required = false) Integer limit) {
+        return CursorResponses.from(messageService.history(roomId, before, limit));
     }
 
     @PostMapping
@@ -85,12 +98,20 @@ public class MessageController {
     }
 
     private MessageResponse toResponse(Message message) {
-        return new MessageResponse(
-                message.getId(),
-                message.getRoomId(),
-                message.getSenderId(),
-                message.getText(),
-                message.getCreatedAt()
+        return MessageResponse.from(message);
+    }
+
+    private MessageSearchResponse toSearchResponse(MessageSearchHit hit) {
+        String highlight = hit.highlight() == null ? null : HtmlUtils.htmlEscape(hit.highlight())
+                .replace(MessageSearchRepository.MATCH_START, "<mark>")
+                .replace(MessageSearchRepository.MATCH_END, "</mark>");
+        return new MessageSearchResponse(
+                hit.id(),
+                hit.roomId(),
+                hit.senderId(),
+                hit.text(),
+                hit.createdAt(),
+                highlight
         );
     }
 
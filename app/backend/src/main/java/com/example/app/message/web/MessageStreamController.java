@@ -1,29 +1,157 @@
 package com.example.app.message.web;
 
-import com.example.app.message.service.MessageBroadcaster;
-import com.example.app.message.web.dto.MessageResponse;
+import com.example.app.message.service.MessageStreamService;
+import com.example.app.message.service.MultiRoomStreamService;
+import com.example.app.message.service.SseFrame;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/messages/stream")
 public class MessageStreamController {
 
-    private final MessageBroadcaster messageBroadcaster;
+    // frames requested ahead per connection; beyond that the per-subscriber buffer takes over
+    private static final int WRITE_PREFETCH = 16;
+
+    private final MessageStreamService messageStreamService;
+    private final MultiRoomStreamService multiRoomStreamService;
+    private final Scheduler sseWriteScheduler;
 
-    public MessageStreamController(MessageBroadcaster messageBroadcaster) {
-        this.messageBroadcaster = messageBroadcaster;
+    public MessageStreamController(MessageStreamService messageStreamService,
+                                   MultiRoomStreamService multiRoomStreamService,
+                                   Scheduler sseWriteScheduler) {
+        this.messageStreamService = messageStreamService;
+        this.multiRoomStreamService = multiRoomStreamService;
+        this.sseWriteScheduler = sseWriteScheduler;
     }
 
     @GetMapping(path = "/{roomId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     // TODO: Implement fine-grained room access control. For now, any authenticated user can listen.
     @PreAuthorize("isAuthenticated()")
-    public Flux<MessageResponse> streamMessages(@PathVariable String roomId) {
-        return messageBroadcaster.stream(roomId);
+    public ResponseEntity<ResponseBodyEmitter> streamMessages(@PathVariable String roomId,
+                                                              @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                              @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        // EventSource sends the header on automatic reconnects; the query parameter covers a fresh
+        // EventSource created by the client after it closed the previous one.
+        Flux<SseFrame> frames = messageStreamService.open(roomId, lastEventId != null ? lastEventId : lastEventIdParam);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(write(frames));
+    }
+
+    /**
+     * One connection for several rooms: {@code rooms=a,b@<lastEventId>,c}, where a room may carry
+     * the last event id the client saw in it. The first event ({@code connected}) holds the
+     * connection id used to add or remove rooms without reconnecting. Event ids are resume tokens
+     * for the whole connection; when one comes back as {@code Last-Event-ID} (or
+     * {@code lastEventId}) it takes precedence over {@code rooms}, including rooms added or removed
+     * since the connection was opened.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseBodyEmitter> streamRooms(@RequestParam(value = "rooms", required = false) String rooms,
+                                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                           @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+                                                           Authentication authentication) {
+        Map<String, String> requested = rooms != null ? parseRooms(rooms) : Map.of();
+        Flux<SseFrame> frames = multiRoomStreamService.open(owner(authentication), requested,
+                lastEventId != null ? lastEventId : lastEventIdParam);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(write(frames));
+    }
+
+    @PutMapping("/connections/{connectionId}/rooms/{roomId}")
+    @PreAuthorize("isAuthenticated()")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void addRoom(@PathVariable String connectionId,
+                        @PathVariable String roomId,
+                        @RequestParam(value = "lastEventId", required = false) String lastEventId,
+                        Authentication authentication) {
+        multiRoomStreamService.addRoom(connectionId, owner(authentication), roomId, lastEventId);
+    }
+
+    @DeleteMapping("/connections/{connectionId}/rooms/{roomId}")
+    @PreAuthorize("isAuthenticated()")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void removeRoom(@PathVariable String connectionId, @PathVariable String roomId, Authentication authentication) {
+        multiRoomStreamService.removeRoom(connectionId, owner(authentication), roomId);
+    }
+
+    /**
+     * The user id a multi-room connection belongs to. Only that user can add or remove its rooms;
+     * anyone else gets the same 404 as for an unknown connection id.
+     */
+    private static UUID owner(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "unauthenticated");
+        }
+        return UUID.fromString(authentication.getPrincipal().toString());
+    }
+
+    private static Map<String, String> parseRooms(String rooms) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : rooms.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+            // cursors are base64url, so the last '@' separates the room from its last event id
+            int at = trimmed.lastIndexOf('@');
+            if (at > 0) {
+                parsed.put(trimmed.substring(0, at), trimmed.substring(at + 1));
+            } else {
+                parsed.put(trimmed, null);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Writes pre-encoded frames as raw bytes, skipping the per-connection message conversion that
+     * returning {@code Flux<ServerSentEvent>} would do.
+     *
+     * <p>Each write blocks a {@code sseWriteScheduler} thread until the client has taken the bytes.
+     * A stalled client holds that thread until Tomcat's write timeout
+     * ({@code server.tomcat.connection-timeout}) fails the write and the connection is closed. On
+     * boundedElastic (the default outside virtual-thread mode) the pool is capped at ten threads per
+     * core, so that many stalled clients at once delay every other connection's writes for up to
+     * the timeout.
+     */
+    private ResponseBodyEmitter write(Flux<SseFrame> frames) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        Disposable subscription = frames
+                // a slow client blocks its socket write; keep that off the thread emitting to the room
+                .publishOn(sseWriteScheduler, WRITE_PREFETCH)
+                .subscribe(frame -> send(emitter, frame), emitter::completeWithError, emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    private static void send(ResponseBodyEmitter emitter, SseFrame frame) {
+        try {
+            emitter.send(frame.bytes(), MediaType.TEXT_EVENT_STREAM);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
     }
 }
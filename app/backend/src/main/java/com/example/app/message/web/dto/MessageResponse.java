@@ -1,5 +1,7 @@
 package com.example.app.message.web.dto;
 
+import com.example.app.message.domain.Message;
+
 import java.time.Instant;
 import java.util.UUID;
 
@@ -10,4 +12,13 @@ public record MessageResponse(
         String text,
         Instant createdAt
 ) {
+    public static MessageResponse from(Message message) {
+        return new MessageResponse(
+                message.getId(),
+                message.getRoomId(),
+                message.getSenderId(),
+                message.getText(),
+                message.getCreatedAt()
+        );
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.app.message.web.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Search result row. {@code highlight} is HTML-escaped text with matched terms wrapped in
+ * {@code <mark>}; it is {@code null} when the search had no query term.
+ */
+public record MessageSearchResponse(
+        UUID id,
+        String roomId,
+        Long senderId,
+        String text,
+        Instant createdAt,
+        String highlight
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.app.message.web.dto;
+
+import java.util.List;
+
+/**
+ * First event ({@code connected}) on a multi-room stream. {@code connectionId} addresses the
+ * connection when adding or removing rooms; it is only known to the node holding the connection.
+ */
+public record StreamConnected(String connectionId, List<String> rooms) {
+}
@@ -0,0 +1,8 @@
+package com.example.app.message.web.dto;
+
+/**
+ * Sent as a {@code gap} event when a resumed stream cannot replay everything after
+ * {@code lastEventId}; the client should reload the room through the history endpoint.
+ */
+public record StreamGap(String roomId, String lastEventId) {
+}
@@ -0,0 +1,201 @@
+package com.example.app.retention;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of {@code message} (see V7): creates
+ * {@code retention.partitions.ahead-months} partitions past the current month, and retires
+ * partitions whose whole range has passed a cutoff by detaching and then dropping them. Both run
+ * under a transaction-scoped advisory lock, so only one node changes partitions at a time.
+ *
+ * <p>{@code message_default} should stay empty. Rows only land there when no partition covers their
+ * {@code created_at} (partitions were not created in time, or a timestamp is far off). Creating the
+ * partition for such a month moves its rows out of the default partition. Rows for months that
+ * never get a partition stay there, and retention never drops them. {@link #defaultRows()} backs the
+ * {@code retention.partitions.default.rows} gauge so they get noticed.
+ */
+@Component
+@ConditionalOnProperty(name = "retention.enabled", havingValue = "true", matchIfMissing = true)
+public class MessagePartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(MessagePartitionManager.class);
+    private static final long PARTITION_LOCK_KEY = 0x6d73_6770_6172_7469L; // "msgparti"
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("message_p(\\d{6})");
+    // counting stops here; the gauge only has to show that rows are there
+    private static final int DEFAULT_ROWS_LIMIT = 100_000;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final int aheadMonths;
+    private final String lockTimeout;
+    private final Counter created;
+    private final Counter drained;
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    public MessagePartitionManager(JdbcTemplate jdbc,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${retention.partitions.ahead-months:3}") int aheadMonths,
+                                   @Value("${retention.partitions.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.aheadMonths = aheadMonths;
+        this.lockTimeout = lockTimeoutMs + "ms";
+        this.created = meterRegistry.counter("retention.partitions.created");
+        this.drained = meterRegistry.counter("retention.partitions.default.drained");
+        meterRegistry.gauge("retention.partitions.default.rows", defaultRows);
+    }
+
+    /** A partition that was detached and dropped. */
+    public record Retired(String name, long rows) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            ensureAhead();
+        } catch (DataAccessException e) {
+            // inserts still land in message_default; the next retention run tries again
+            log.warn("Could not pre-create message partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Creates any missing partition from the current month through {@code ahead-months} ahead. */
+    public void ensureAhead() {
+        YearMonth current = YearMonth.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!tryLock()) return;
+            for (int i = 0; i <= aheadMonths; i++) {
+                YearMonth month = current.plusMonths(i);
+                String name = name(month);
+                if (exists(name)) continue;
+                String from = month.atDay(1).toString();
+                String to = month.plusMonths(1).atDay(1).toString();
+                jdbc.execute("set local lock_timeout = '" + lockTimeout + "'");
+                // creating the partition fails if message_default holds rows in its range, so
+                // move them out first and back in once the partition exists
+                jdbc.execute("lock table message_default in access exclusive mode");
+                String range = " where created_at >= '" + from + "' and created_at < '" + to + "'";
+                jdbc.execute("create temp table message_drain as"
+                        + " select id, room_id, sender_id, text, created_at from message_default with no data");
+                int moved = jdbc.update("insert into message_drain"
+                        + " select id, room_id, sender_id, text, created_at from message_default" + range);
+                if (moved > 0) {
+                    jdbc.update("delete from message_default" + range);
+                }
+                jdbc.execute("create table " + name + " partition of message for values from ('" + from + "') to ('" + to + "')");
+                if (moved > 0) {
+                    jdbc.update("insert into message (id, room_id, sender_id, text, created_at)"
+                            + " select id, room_id, sender_id, text, created_at from message_drain");
+                    drained.increment(moved);
+                    log.warn("Moved {} rows from message_default into {}", moved, name);
+                }
+                jdbc.execute("drop table message_drain");
+                created.increment();
+                log.info("Created message partition {}", name);
+            }
+        });
+    }
+
+    /**
+     * Detaches and drops every partition whose upper bound is at or before {@code cutoff}, i.e.
+     * every partition holding only expired rows. Each partition is detached in its own short
+     * transaction (the detach briefly locks {@code message}; {@code lock-timeout-ms} keeps it from
+     * queueing behind long queries) and counted and dropped in a second one, off the parent
+     * table. Tables left detached by an interrupted run are dropped as well.
+     */
+    public List<Retired> retireBefore(LocalDateTime cutoff) {
+        List<Retired> retired = new ArrayList<>();
+        for (String name : expired(cutoff)) {
+            Boolean detached = transactionTemplate.execute(status -> {
+                if (!tryLock()) return false;
+                if (isAttached(name)) {
+                    jdbc.execute("set local lock_timeout = '" + lockTimeout + "'");
+                    jdbc.execute("alter table message detach partition " + name);
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(detached)) {
+                // another node is already at it
+                break;
+            }
+            Long rows = transactionTemplate.execute(status -> {
+                if (!exists(name)) return null;
+                long count = jdbc.queryForObject("select count(*) from " + name, Long.class);
+                jdbc.execute("drop table " + name);
+                return count;
+            });
+            if (rows != null) {
+                retired.add(new Retired(name, rows));
+                log.info("Dropped message partition {} ({} rows)", name, rows);
+            }
+        }
+        return retired;
+    }
+
+    /** Counts rows in {@code message_default} (up to a limit) and updates the gauge. */
+    public long defaultRows() {
+        long rows = jdbc.queryForObject("select count(*) from (select 1 from message_default limit " + DEFAULT_ROWS_LIMIT + ") d", Long.class);
+        defaultRows.set(rows);
+        return rows;
+    }
+
+    private List<String> expired(LocalDateTime cutoff) {
+        // attached partitions plus any detached leftover with a partition name
+        List<String> names = jdbc.queryForList(
+                "select c.relname from pg_class c join pg_namespace n on n.oid = c.relnamespace"
+                        + " where n.nspname = current_schema() and c.relkind in ('r', 'p')"
+                        + " and c.relname like 'message\\_p______' order by c.relname",
+                String.class);
+        List<String> expired = new ArrayList<>();
+        for (String name : names) {
+            month(name).filter(m -> !m.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff))
+                    .ifPresent(m -> expired.add(name));
+        }
+        return expired;
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbc.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, PARTITION_LOCK_KEY));
+    }
+
+    private boolean exists(String name) {
+        return jdbc.queryForObject("select to_regclass(?) is not null", Boolean.class, name);
+    }
+
+    private boolean isAttached(String name) {
+        return jdbc.queryForObject(
+                "select exists (select 1 from pg_inherits where inhrelid = to_regclass(?) and inhparent = 'message'::regclass)",
+                Boolean.class, name);
+    }
+
+    static String name(YearMonth month) {
+        return "message_p" + month.format(SUFFIX);
+    }
+
+    static Optional<YearMonth> month(String name) {
+        Matcher m = PARTITION_NAME.matcher(name);
+        return m.matches() ? Optional.of(YearMonth.parse(m.group(1), SUFFIX)) : Optional.empty();
+    }
+}
@@ -1,26 +1,72 @@
 package com.example.app.retention;
 
-import com.example.app.message.repository.MessageRepository;
+import com.example.app.files.AttachmentPurger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
 
+/**
+ * Retires messages older than {@code retention.days} a month partition at a time, so a message
+ * is kept for at least that long and at most one month more, and tops up future partitions. Then
+ * purges expired attachments through {@link AttachmentPurger}.
+ *
+ * <p>Rows in {@code message_default} are outside every partition and never retire; each run logs a
+ * warning while there are any (gauge {@code retention.partitions.default.rows}). They are moved out
+ * when their month's partition is created; otherwise they need a look by hand.
+ */
 @Component
+@ConditionalOnProperty(name = "retention.enabled", havingValue = "true", matchIfMissing = true)
 public class RetentionJob {
-    private final MessageRepository repo;
+    private static final Logger log = LoggerFactory.getLogger(RetentionJob.class);
+
+    private final MessagePartitionManager partitions;
+    private final AttachmentPurger attachmentPurger;
     private final int days;
+    private final Timer duration;
+    private final Counter rowsRetired;
+    private final Counter partitionsDropped;
 
-    public RetentionJob(MessageRepository r, @Value("${retention.days:90}") int days) {
-        this.repo = r;
+    public RetentionJob(MessagePartitionManager partitions, AttachmentPurger attachmentPurger, MeterRegistry meterRegistry, @Value("${retention.days:90}") int days) {
+        this.partitions = partitions;
+        this.attachmentPurger = attachmentPurger;
         this.days = days;
+        this.duration = meterRegistry.timer("retention.run");
+        this.rowsRetired = meterRegistry.counter("retention.rows.retired");
+        this.partitionsDropped = meterRegistry.counter("retention.partitions.dropped");
     }
 
-    @Scheduled(cron = "0 0 * * * *")
+    @Scheduled(cron = "${retention.cron:0 0 * * * *}")
     public void run() {
-        var cutoff = Instant.now().minus(days, ChronoUnit.DAYS); // naive example
-        // Note: For demo purposes skip heavy delete; production would use native query by created_at < cutoff
+        duration.record(() -> {
+            try {
+                partitions.ensureAhead();
+                long stray = partitions.defaultRows();
+                if (stray > 0) {
+                    log.warn("{} rows in message_default are outside every partition and are not retired", stray);
+                }
+                var cutoff = LocalDateTime.now().minusDays(days);
+                for (var retired : partitions.retireBefore(cutoff)) {
+                    rowsRetired.increment(retired.rows());
+                    partitionsDropped.increment();
+                }
+            } catch (Exception e) {
+                log.warn("Message retention failed, retrying on the next schedule: {}", e.getMessage(), e);
+            }
+            try {
+                long purged = attachmentPurger.run();
+                if (purged > 0) log.info("Processed {} expired attachments", purged);
+            } catch (Exception e) {
+                // committed chunks stay purged; the checkpoint resumes the rest
+                log.warn("Attachment purge failed, resuming on the next schedule: {}", e.getMessage(), e);
+            }
+        });
     }
 }
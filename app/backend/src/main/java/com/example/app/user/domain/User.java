@@ -1,12 +1,16 @@
 package com.example.app.user.domain;
-import jakarta.persistence.*; import java.util.UUID;
-@Entity @Table(name="app_user")
-public class User {
-  @Id @Column(columnDefinition="uuid") private UUID id = UUID.randomUUID();
+import com.example.app.common.data.UuidV7; import com.example.app.user.service.UserCacheInvalidator; import jakarta.persistence.*; import org.springframework.data.domain.Persistable; import java.util.UUID;
+@Entity @Table(name="app_user") @EntityListeners(UserCacheInvalidator.class)
+public class User implements Persistable<UUID> {
+  @Id @Column(columnDefinition="uuid") private UUID id = UuidV7.next();
   @Column(unique=true, nullable=false) private String email;
   @Column(nullable=false) private String passwordHash;
   private String displayName;
-  public UUID getId(){return id;} public void setId(UUID id){this.id=id;}
+  // pre-assigned id: report new-ness explicitly so save() persists instead of SELECT-then-merge
+  @Transient private boolean isNew = true;
+  @PostPersist @PostLoad void markNotNew(){this.isNew=false;}
+  @Override public boolean isNew(){return isNew;}
+  @Override public UUID getId(){return id;} public void setId(UUID id){this.id=id;}
   public String getEmail(){return email;} public void setEmail(String v){this.email=v;}
   public String getPasswordHash(){return passwordHash;} public void setPasswordHash(String v){this.passwordHash=v;}
   public String getDisplayName(){return displayName;} public void setDisplayName(String v){this.displayName=v;}
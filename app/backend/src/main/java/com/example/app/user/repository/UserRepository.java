@@ -1,5 +1,9 @@
 package com.example.app.user.repository;
 import com.example.app.user.domain.User; import org.springframework.data.jpa.repository.JpaRepository; import java.util.Optional; import java.util.UUID;
+import org.springframework.data.jpa.repository.Modifying; import org.springframework.data.jpa.repository.Query; import org.springframework.data.repository.query.Param; import org.springframework.transaction.annotation.Transactional;
 public interface UserRepository extends JpaRepository<User, UUID> {
   Optional<User> findByEmail(String email);
+  @Transactional @Modifying
+  @Query("update User u set u.passwordHash = :upgraded where u.id = :id and u.passwordHash = :current")
+  int updatePasswordHash(@Param("id") UUID id, @Param("current") String current, @Param("upgraded") String upgraded);
 }
@@ -4,8 +4,11 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.example.app.user.domain.User;
 import com.example.app.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,20 +19,24 @@ import java.util.UUID;
 
 @Service
 public class AuthService {
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final Counter rehashed;
     private final Algorithm algorithm;
     private final String issuer;
     private final long ttlMinutes;
 
     public AuthService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder,
+                       PasswordHasher passwordHasher,
+                       MeterRegistry meterRegistry,
                        @Value("${jwt.secret}") String secret,
                        @Value("${jwt.issuer}") String issuer,
                        @Value("${jwt.access-token-ttl-min}") long ttlMinutes) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.rehashed = meterRegistry.counter("password.rehash");
         this.algorithm = Algorithm.HMAC256(secret);
         this.issuer = issuer;
         this.ttlMinutes = ttlMinutes;
@@ -37,19 +44,25 @@ public class AuthService {
 
     @Transactional
     public User register(String email, String rawPassword, String displayName) {
+        // hash before the first query: the connection is acquired lazily, so it is not held while waiting on the hash pool
+        String passwordHash = passwordHasher.encode(rawPassword);
         userRepository.findByEmail(email).ifPresent(existing -> {
             throw new IllegalArgumentException("이미 등록된 이메일입니다.");
         });
         User user = new User();
         user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(rawPassword));
+        user.setPasswordHash(passwordHash);
         user.setDisplayName(displayName);
         return userRepository.save(user);
     }
 
     public Optional<String> login(String email, String rawPassword) {
         return userRepository.findByEmail(email)
-                .filter(user -> passwordEncoder.matches(rawPassword, user.getPasswordHash()))
+                .filter(user -> passwordHasher.matches(rawPassword, user.getPasswordHash()))
+                .map(user -> {
+                    upgradeHashIfNeeded(user, rawPassword);
+                    return user;
+                })
                 .map(user -> JWT.create()
                         .withIssuer(issuer)
                         .withSubject(user.getId().toString())
@@ -62,6 +75,29 @@ public class AuthService {
                 );
     }
 
+    /**
+     * Re-hashes with the current algorithm and work factor after a successful login, in the
+     * background: the login response does not wait for it, and a saturated pool just defers the
+     * upgrade to a later login.
+     */
+    private void upgradeHashIfNeeded(User user, String rawPassword) {
+        String current = user.getPasswordHash();
+        if (!passwordHasher.needsUpgrade(current)) {
+            return;
+        }
+        passwordHasher.encodeAsync(rawPassword)
+                .thenAccept(upgraded -> {
+                    // guarded on the old hash so a concurrent password change is never overwritten
+                    if (userRepository.updatePasswordHash(user.getId(), current, upgraded) == 1) {
+                        rehashed.increment();
+                    }
+                })
+                .exceptionally(e -> {
+                    log.debug("Deferred password hash upgrade for user {}: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
+
     public static long deriveSenderId(UUID userId) {
         int hash = userId.hashCode();
         return Integer.toUnsignedLong(hash);
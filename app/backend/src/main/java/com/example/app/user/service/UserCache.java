@@ -0,0 +1,171 @@
+package com.example.app.user.service;
+
+import com.example.app.user.repository.UserRepository;
+import com.example.app.user.web.dto.UserPublicResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * User profiles by id, read through a per-node Caffeine tier, then a shared Redis tier, then the
+ * database. When a user row changes, {@link #evictAfterCommit} replaces the Redis entry with a
+ * short-lived tombstone and broadcasts the id on {@code user:invalidate} so every node drops its
+ * near copy. Database reads are written back only if the key is absent ({@code SET NX}). A read
+ * that loaded the row before the change therefore finds the tombstone and caches nothing, rather
+ * than restoring the old row for the whole Redis TTL. The near tier TTL bounds staleness if a
+ * broadcast is missed. Password hashes are never cached.
+ *
+ * <p>Lookups by email ({@link AuthService}) are deliberately not cached. Login reads the password
+ * hash, which is never cached, and register must check uniqueness against the database, so an
+ * email-to-id entry would save neither query and would add another key to invalidate.
+ */
+@Component
+public class UserCache implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+    private static final String KEY_PREFIX = "user:profile:";
+    private static final ChannelTopic INVALIDATE = new ChannelTopic("user:invalidate");
+    private static final String TOMBSTONE = "-";
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, UserPublicResponse> near;
+    private final Duration redisTtl;
+    private final Duration tombstoneTtl;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public UserCache(UserRepository userRepository,
+                     StringRedisTemplate redis,
+                     RedisMessageListenerContainer container,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.user-cache.near.max-size:10000}") long nearMaxSize,
+                     @Value("${app.user-cache.near.ttl-seconds:60}") long nearTtlSeconds,
+                     @Value("${app.user-cache.redis.ttl-seconds:600}") long redisTtlSeconds,
+                     @Value("${app.user-cache.redis.tombstone-seconds:10}") long tombstoneSeconds) {
+        this.userRepository = userRepository;
+        this.redis = redis;
+        this.container = container;
+        this.objectMapper = objectMapper;
+        this.near = Caffeine.newBuilder()
+                .maximumSize(nearMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(nearTtlSeconds))
+                .recordStats()
+                .build();
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.tombstoneTtl = Duration.ofSeconds(tombstoneSeconds);
+        CaffeineCacheMetrics.monitor(meterRegistry, near, "user.near");
+        this.redisHits = meterRegistry.counter("user.cache.redis.requests", "result", "hit");
+        this.redisMisses = meterRegistry.counter("user.cache.redis.requests", "result", "miss");
+    }
+
+    @PostConstruct
+    void subscribe() {
+        container.addMessageListener(this, INVALIDATE);
+    }
+
+    public Optional<UserPublicResponse> findById(UUID id) {
+        UserPublicResponse cached = near.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<UserPublicResponse> hit = fromRedis(id);
+        if (hit.isPresent()) {
+            near.put(id, hit.get());
+            return hit;
+        }
+        Optional<UserPublicResponse> loaded = userRepository.findById(id)
+                .map(u -> new UserPublicResponse(u.getId(), u.getEmail(), u.getDisplayName()));
+        loaded.ifPresent(u -> {
+            // near first: an eviction after this point also clears it
+            near.put(id, u);
+            if (!toRedis(u)) {
+                // evicted (or written by another reader) since the miss; this copy may be stale
+                near.asMap().remove(id, u);
+            }
+        });
+        return loaded;
+    }
+
+    /** Invalidates the user on every node once the current transaction commits (or now, outside one). */
+    public void evictAfterCommit(UUID id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        } else {
+            evict(id);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            near.invalidate(UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed user invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void evict(UUID id) {
+        near.invalidate(id);
+        try {
+            redis.opsForValue().set(KEY_PREFIX + id, TOMBSTONE, tombstoneTtl);
+            redis.convertAndSend(INVALIDATE.getTopic(), id.toString());
+        } catch (Exception e) {
+            // other nodes fall back on the near-cache TTL
+            log.warn("Failed to broadcast invalidation of user {}: {}", id, e.getMessage());
+        }
+    }
+
+    private Optional<UserPublicResponse> fromRedis(UUID id) {
+        try {
+            String json = redis.opsForValue().get(KEY_PREFIX + id);
+            if (json == null || TOMBSTONE.equals(json)) {
+                redisMisses.increment();
+                return Optional.empty();
+            }
+            redisHits.increment();
+            return Optional.of(objectMapper.readValue(json, UserPublicResponse.class));
+        } catch (Exception e) {
+            log.debug("Redis user cache read failed for {}: {}", id, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** @return false when the key was already set, which may be a tombstone from an eviction */
+    private boolean toRedis(UserPublicResponse user) {
+        try {
+            return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(KEY_PREFIX + user.id(), objectMapper.writeValueAsString(user), redisTtl));
+        } catch (Exception e) {
+            // with Redis down the near tier is all there is, bounded by its TTL
+            log.debug("Redis user cache write failed for {}: {}", user.id(), e.getMessage());
+            return true;
+        }
+    }
+}
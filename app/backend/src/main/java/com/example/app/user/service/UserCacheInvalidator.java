@@ -0,0 +1,23 @@
+package com.example.app.user.service;
+
+import com.example.app.user.domain.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/** JPA entity listener on {@link User}: any update or delete invalidates the cached profile. */
+@Component
+public class UserCacheInvalidator {
+
+    private final UserCache userCache;
+
+    public UserCacheInvalidator(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void onChange(User user) {
+        userCache.evictAfterCommit(user.getId());
+    }
+}
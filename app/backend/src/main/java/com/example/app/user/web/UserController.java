@@ -1,7 +1,6 @@
 package com.example.app.user.web;
 
-import com.example.app.user.domain.User;
-import com.example.app.user.repository.UserRepository;
+import com.example.app.user.service.UserCache;
 import com.example.app.user.web.dto.UserPublicResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,10 +17,10 @@ import java.util.UUID;
 @RequestMapping("/api/users")
 public class UserController {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
-    public UserController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserController(UserCache userCache) {
+        this.userCache = userCache;
     }
 
     @GetMapping("/me")
@@ -34,9 +33,7 @@ public class UserController {
         String userIdStr = authentication.getPrincipal().toString();
         UUID userId = UUID.fromString(userIdStr);
 
-        User user = userRepository.findById(userId)
+        return userCache.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        return new UserPublicResponse(user.getId(), user.getEmail(), user.getDisplayName());
     }
 }
@@ -0,0 +1,2 @@
+-- keyset index for the room gallery: (room_code, created_at, id) matches its ORDER BY exactly
+create index if not exists idx_attachment_room_created_id on attachment (room_code, created_at desc, id desc);
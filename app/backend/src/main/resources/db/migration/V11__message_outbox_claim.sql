@@ -0,0 +1,4 @@
+-- the relay claims rows for chat.outbox.lease-ms and publishes them after the claim commits;
+-- a room's later rows wait while an earlier one is claimed, which keeps each room in order
+alter table message_outbox add column if not exists claimed_until timestamptz;
+create index if not exists idx_message_outbox_room_id on message_outbox (room_id, id);
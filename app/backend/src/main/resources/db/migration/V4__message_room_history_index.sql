@@ -0,0 +1,2 @@
+-- keyset index for room history: (room_id, created_at, id) matches the history ORDER BY exactly
+create index if not exists idx_message_room_created_id on message (room_id, created_at desc, id desc);
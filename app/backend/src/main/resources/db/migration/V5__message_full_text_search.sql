@@ -0,0 +1,12 @@
+-- indexed message search: word matches through a generated tsvector, substring matches through pg_trgm.
+-- btree_gin lets room_id live in the same GIN indexes, so a room-scoped search is a single index scan.
+create extension if not exists pg_trgm;
+create extension if not exists btree_gin;
+
+alter table message
+  add column if not exists text_tsv tsvector
+  generated always as (to_tsvector('simple', coalesce(text, ''))) stored;
+
+-- multicolumn GIN indexes serve predicates on any subset of their columns (with or without room_id)
+create index if not exists idx_message_room_text_tsv on message using gin (room_id, text_tsv);
+create index if not exists idx_message_room_text_trgm on message using gin (room_id, text gin_trgm_ops);
@@ -0,0 +1,7 @@
+-- transactional outbox: rows are written with the message and deleted once the relay has fanned them out
+create table if not exists message_outbox (
+  id bigserial primary key,
+  room_id varchar(255) not null,
+  payload text not null,
+  created_at timestamptz not null default now()
+);
@@ -0,0 +1,50 @@
+-- range-partition message by month of created_at so retention can drop whole partitions instead of
+-- deleting rows. Partitions are named message_pYYYYMM; MessagePartitionManager keeps creating them
+-- ahead of time, and the default partition only catches rows outside every created range.
+--
+-- DOWNTIME: this runs as one transaction. The rename takes an ACCESS EXCLUSIVE lock on message,
+-- and it is held while every row is copied and the indexes are rebuilt, so all reads and writes of
+-- message block until the migration commits. The time grows with the table size. Deploy it in a
+-- maintenance window with message writes stopped, and time a dry run on a restored copy of
+-- production first to size the window.
+alter table message rename to message_unpartitioned;
+
+create table message (
+  id uuid not null,
+  room_id varchar(255),
+  sender_id bigint,
+  text varchar(2000),
+  created_at timestamp not null,
+  text_tsv tsvector generated always as (to_tsvector('simple', coalesce(text, ''))) stored,
+  -- a unique constraint on a partitioned table must include the partition key
+  primary key (id, created_at)
+) partition by range (created_at);
+
+create table message_default partition of message default;
+
+do $$
+declare
+  first_month date := date_trunc('month', coalesce((select min(created_at) from message_unpartitioned), localtimestamp));
+  last_month date := date_trunc('month', localtimestamp) + interval '3 months';
+  m date;
+begin
+  m := first_month;
+  while m <= last_month loop
+    execute format('create table %I partition of message for values from (%L) to (%L)',
+                   'message_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+    m := m + interval '1 month';
+  end loop;
+end $$;
+
+-- rows without a timestamp predate the not-null column; they are kept and age out from now
+insert into message (id, room_id, sender_id, text, created_at)
+select id, room_id, sender_id, text, coalesce(created_at, localtimestamp) from message_unpartitioned;
+
+drop table message_unpartitioned;
+
+-- indexes on the parent cascade to every partition, including ones created later
+create index if not exists idx_message_room_created_id on message (room_id, created_at desc, id desc);
+create index if not exists idx_message_room_text_tsv on message using gin (room_id, text_tsv);
+create index if not exists idx_message_room_text_trgm on message using gin (room_id, text gin_trgm_ops);
+-- lookups by id alone cannot prune partitions; this keeps each per-partition probe an index scan
+create index if not exists idx_message_id on message (id);
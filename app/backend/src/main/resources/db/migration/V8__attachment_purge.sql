@@ -0,0 +1,12 @@
+-- keyset order of the attachment purge: oldest first, id breaks ties
+create index if not exists idx_attachment_created_id on attachment (created_at, id);
+
+-- position of the running purge; an interrupted run resumes after the last purged chunk with the
+-- same cutoff. The row is removed once a run reaches the end.
+create table if not exists attachment_purge_checkpoint (
+  id smallint primary key default 1 check (id = 1),
+  cutoff timestamptz not null,
+  last_created_at timestamptz not null,
+  last_id bigint not null,
+  updated_at timestamptz not null default now()
+);
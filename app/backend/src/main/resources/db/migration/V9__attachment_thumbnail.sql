@@ -0,0 +1,2 @@
+-- set by the thumbnail pipeline once a preview has been stored next to the original object
+alter table attachment add column if not exists thumbnail_key varchar(255);
@@ -0,0 +1,60 @@
+package com.example.app.common.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        UUID id = UUID.randomUUID();
+        Cursor cursor = Cursor.of(Instant.parse("2026-03-01T12:34:56.123456Z"), id);
+
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.uuid()).isEqualTo(id);
+    }
+
+    @Test
+    void keepsNumericIds() {
+        Cursor cursor = Cursor.of(Instant.EPOCH, 42L);
+
+        assertThat(Cursor.decode(cursor.encode()).longId()).isEqualTo(42L);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = Cursor.of(Instant.parse("2026-03-01T12:34:56Z"), UUID.randomUUID()).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertThat(Cursor.decode(null)).isNull();
+        assertThat(Cursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String twoParts = Base64.getUrlEncoder().encodeToString("1:2".getBytes());
+        String notANumber = Base64.getUrlEncoder().encodeToString("x:0:id".getBytes());
+
+        assertThatThrownBy(() -> Cursor.decode("***")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Cursor.decode(twoParts)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Cursor.decode(notANumber)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void requiresBothParts() {
+        assertThatThrownBy(() -> new Cursor(null, "id")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Cursor(Instant.EPOCH, "")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
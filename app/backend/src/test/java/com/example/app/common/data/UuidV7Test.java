@@ -0,0 +1,45 @@
+package com.example.app.common.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    // Postgres compares uuids byte by byte, i.e. as unsigned numbers
+    private static final Comparator<UUID> UNSIGNED = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @Test
+    void setsVersionVariantAndTimestamp() {
+        long millis = 1_767_225_600_000L;
+        UUID id = UuidV7.at(millis);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(millis);
+    }
+
+    @Test
+    void laterMillisecondsSortAfterEarlierOnes() {
+        List<UUID> ids = new ArrayList<>();
+        for (long millis = 1_767_225_600_000L; ids.size() < 1_000; millis += 1) {
+            ids.add(UuidV7.at(millis));
+        }
+
+        assertThat(ids).isSortedAccordingTo(UNSIGNED);
+    }
+
+    @Test
+    void idsInTheSameMillisecondDiffer() {
+        long millis = System.currentTimeMillis();
+
+        assertThat(UuidV7.at(millis)).isNotEqualTo(UuidV7.at(millis));
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.app.files;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Purges against real Postgres and MinIO, killing the first run half way through a chunk and
+ * checking that the next one finishes the job from the checkpoint.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "retention.attachments.days=30",
+        "retention.attachments.chunk-size=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AttachmentPurger.class, S3Service.class, AttachmentPurgerTest.Metrics.class})
+class AttachmentPurgerTest {
+
+    private static final String BUCKET = "attachments";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-01-16T16-07-38Z");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("s3.endpoint", minio::getS3URL);
+        registry.add("s3.region", () -> "us-east-1");
+        registry.add("s3.bucket", () -> BUCKET);
+        registry.add("s3.access-key", minio::getUserName);
+        registry.add("s3.secret-key", minio::getPassword);
+    }
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private AttachmentPurger purger;
+    @Autowired
+    private AttachmentRepo repo;
+    @Autowired
+    private S3Service s3Service;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private S3Client s3;
+
+    @BeforeEach
+    void schema() {
+        // written in transactions: the pool's connections do not auto-commit
+        transactionTemplate.executeWithoutResult(status -> createTables());
+        s3 = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .region(Region.US_EAST_1)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+    }
+
+    private void createTables() {
+        // the columns the purge touches (V3, V8, V9), without the app_user foreign key
+        jdbc.execute("""
+                create table if not exists attachment (
+                  id bigserial primary key, room_code varchar(120) not null, uploader_id bigint not null,
+                  s3_key varchar(255) not null, content_type varchar(120) not null, bytes bigint not null,
+                  created_at timestamptz not null default now(), thumbnail_key varchar(255))""");
+        jdbc.execute("""
+                create table if not exists attachment_purge_checkpoint (
+                  id smallint primary key default 1 check (id = 1), cutoff timestamptz not null,
+                  last_created_at timestamptz not null, last_id bigint not null, updated_at timestamptz not null default now())""");
+        jdbc.execute("truncate attachment, attachment_purge_checkpoint");
+    }
+
+    @Test
+    void resumesAnInterruptedRunFromTheCheckpoint() {
+        Instant old = Instant.now().minus(60, ChronoUnit.DAYS);
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(attachment("expired-" + i, old.plusSeconds(i)));
+        }
+        String fresh = attachment("fresh", Instant.now());
+
+        // dies committing the second chunk, after its objects are already deleted
+        AttachmentRepo dying = mock(AttachmentRepo.class, delegatesTo(repo));
+        doAnswer(delegatesTo(repo))
+                .doThrow(new IllegalStateException("node stopped"))
+                .when(dying).deleteAllByIdInBatch(any());
+        AttachmentPurger interrupted = new AttachmentPurger(dying, s3Service, jdbc, transactionTemplate,
+                new SimpleMeterRegistry(), 30, 2, 2);
+        assertThatThrownBy(interrupted::run).hasMessageContaining("node stopped");
+
+        assertThat(remainingKeys()).containsExactly(expired.get(2), expired.get(3), expired.get(4), fresh);
+        assertThat(jdbc.queryForObject("select last_id from attachment_purge_checkpoint", Long.class))
+                .isEqualTo(idOf(expired.get(1)));
+        assertThat(exists(expired.get(2))).isFalse();
+        assertThat(exists(expired.get(4))).isTrue();
+
+        // the session lock went with the failed run, so this one is not locked out
+        assertThat(purger.run()).isEqualTo(3);
+
+        assertThat(remainingKeys()).containsExactly(fresh);
+        assertThat(exists(fresh)).isTrue();
+        expired.forEach(key -> assertThat(exists(key)).as(key).isFalse());
+        assertThat(jdbc.queryForObject("select count(*) from attachment_purge_checkpoint", Long.class)).isZero();
+    }
+
+    private String attachment(String key, Instant createdAt) {
+        s3.putObject(b -> b.bucket(BUCKET).key(key), RequestBody.fromString(key));
+        transactionTemplate.executeWithoutResult(status -> jdbc.update(
+                "insert into attachment (room_code, uploader_id, s3_key, content_type, bytes, created_at) values ('room', 1, ?, 'text/plain', 1, ?)",
+                key, Timestamp.from(createdAt)));
+        return key;
+    }
+
+    private List<String> remainingKeys() {
+        return jdbc.queryForList("select s3_key from attachment order by created_at, id", String.class);
+    }
+
+    private long idOf(String key) {
+        return jdbc.queryForObject("select id from attachment where s3_key = ?", Long.class, key);
+    }
+
+    private boolean exists(String key) {
+        try {
+            s3.headObject(b -> b.bucket(BUCKET).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.app.files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartTokensTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final MultipartTokens tokens = new MultipartTokens("test-secret", 24);
+
+    @Test
+    void pinsEveryPartLength() {
+        MultipartTokens.Upload upload = new MultipartTokens.Upload("k", "u", 12 * MB + 3, 5 * MB);
+
+        assertThat(upload.partCount()).isEqualTo(3);
+        assertThat(upload.partLength(1)).isEqualTo(5 * MB);
+        assertThat(upload.partLength(2)).isEqualTo(5 * MB);
+        assertThat(upload.partLength(3)).isEqualTo(2 * MB + 3);
+    }
+
+    @Test
+    void exactMultipleHasAFullLastPart() {
+        MultipartTokens.Upload upload = new MultipartTokens.Upload("k", "u", 10 * MB, 5 * MB);
+
+        assertThat(upload.partCount()).isEqualTo(2);
+        assertThat(upload.partLength(2)).isEqualTo(5 * MB);
+    }
+
+    @Test
+    void returnsTheDeclaredLayout() {
+        MultipartTokens.Upload upload = new MultipartTokens.Upload("uploads/a.bin", "upload-1", 12 * MB, 5 * MB);
+
+        assertThat(tokens.verify(tokens.issue(upload), "uploads/a.bin", "upload-1")).isEqualTo(upload);
+    }
+
+    @Test
+    void rejectsATokenForAnotherUpload() {
+        String token = tokens.issue(new MultipartTokens.Upload("uploads/a.bin", "upload-1", MB, MB));
+
+        assertBadRequest(() -> tokens.verify(token, "uploads/b.bin", "upload-1"));
+        assertBadRequest(() -> tokens.verify(token, "uploads/a.bin", "upload-2"));
+    }
+
+    @Test
+    void rejectsMissingForgedAndForeignTokens() {
+        String foreign = new MultipartTokens("other-secret", 24).issue(new MultipartTokens.Upload("k", "u", MB, MB));
+        String token = tokens.issue(new MultipartTokens.Upload("k", "u", MB, MB));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertBadRequest(() -> tokens.verify(null, "k", "u"));
+        assertBadRequest(() -> tokens.verify(" ", "k", "u"));
+        assertBadRequest(() -> tokens.verify(foreign, "k", "u"));
+        assertBadRequest(() -> tokens.verify(tampered, "k", "u"));
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BroadcastCodecTest {
+
+    private static final MessageResponse MESSAGE = new MessageResponse(UUID.randomUUID(), "room-é", 7L,
+            "héllo ".repeat(40), Instant.parse("2026-03-01T12:34:56.123456Z"));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "compact"})
+    void roundTrips(String format) {
+        BroadcastCodec codec = codec(format);
+
+        assertThat(codec.decode(codec.encode(MESSAGE))).isEqualTo(MESSAGE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "compact"})
+    void roundTripsMissingFields(String format) {
+        BroadcastCodec codec = codec(format);
+        MessageResponse tombstone = MessageFanout.tombstone("room", UUID.randomUUID());
+
+        assertThat(codec.decode(codec.encode(tombstone))).isEqualTo(tombstone);
+    }
+
+    @Test
+    void compactPayloadStartsWithItsVersion() {
+        byte[] payload = codec("compact").encode(MESSAGE);
+
+        assertThat(payload[0]).isEqualTo(CompactBroadcastFormat.VERSION);
+        assertThat(payload.length).isLessThan(codec("json").encode(MESSAGE).length);
+    }
+
+    @Test
+    void readsEveryFormatWhateverItWrites() {
+        assertThat(codec("json").decode(codec("compact").encode(MESSAGE))).isEqualTo(MESSAGE);
+        assertThat(codec("compact").decode(codec("json").encode(MESSAGE))).isEqualTo(MESSAGE);
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndEmptyPayloads() {
+        BroadcastCodec codec = codec("compact");
+        byte[] future = codec.encode(MESSAGE);
+        future[0] = 0x02;
+
+        assertThatThrownBy(() -> codec.decode(future)).hasMessageContaining("0x02");
+        assertThatThrownBy(() -> codec.decode(new byte[0])).hasMessageContaining("empty");
+    }
+
+    @Test
+    void rejectsUnknownWriter() {
+        assertThatThrownBy(() -> codec("protobuf")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BroadcastCodec codec(String format) {
+        return new BroadcastCodec(format, new SimpleMeterRegistry());
+    }
+}
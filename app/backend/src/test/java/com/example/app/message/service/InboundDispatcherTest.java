@@ -0,0 +1,91 @@
+package com.example.app.message.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InboundDispatcherTest {
+
+    private static final int CAPACITY = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> resets = new CopyOnWriteArrayList<>();
+    private final InboundDispatcher dispatcher = new InboundDispatcher(resets::add, meterRegistry, 2, CAPACITY);
+
+    @AfterEach
+    void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void floodedRoomNeitherBlocksTheCallerNorDelaysRoomsOnOtherLanes() throws Exception {
+        String flooded = "room-0";
+        String other = roomOnOtherLane(flooded);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+        dispatcher.dispatch(flooded, () -> await(release));
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            int n = i;
+            dispatcher.dispatch(flooded, () -> delivered.add(n));
+        }
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+
+        CountDownLatch otherRan = new CountDownLatch(1);
+        dispatcher.dispatch(other, otherRan::countDown);
+        assertThat(otherRan.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(resets).isEmpty();
+
+        release.countDown();
+        waitFor(() -> resets.contains(flooded));
+        // the blocking task may or may not have left the queue before the flood started
+        assertThat(delivered).hasSizeBetween(CAPACITY - 1, CAPACITY).isSorted();
+        assertThat(meterRegistry.counter("chat.fanout.lane.dropped").count())
+                .isEqualTo(1_000 - delivered.size());
+        assertThat(resets).containsExactly(flooded);
+    }
+
+    @Test
+    void roomKeepsItsOrder() throws Exception {
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            int n = i;
+            dispatcher.dispatchOrWait("room", () -> delivered.add(n));
+        }
+        waitFor(() -> delivered.size() == CAPACITY);
+        assertThat(delivered).containsExactly(0, 1, 2, 3);
+    }
+
+    private static String roomOnOtherLane(String room) {
+        for (int i = 1; ; i++) {
+            String candidate = "room-" + i;
+            if (Math.floorMod(candidate.hashCode(), 2) != Math.floorMod(room.hashCode(), 2)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 5s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two nodes on one embedded broker, each reading every partition of the fan-out topic by direct
+ * assignment: both must see every message, each room in publish order.
+ */
+@EmbeddedKafka(partitions = KafkaBroadcastTest.PARTITIONS, topics = KafkaBroadcastTest.TOPIC)
+class KafkaBroadcastTest {
+
+    static final int PARTITIONS = 4;
+    static final String TOPIC = "chat.messages";
+
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    void everyNodeGetsEveryRoomInOrder(EmbeddedKafkaBroker broker) throws Exception {
+        Map<String, List<String>> first = new ConcurrentHashMap<>();
+        Map<String, List<String>> second = new ConcurrentHashMap<>();
+        KafkaBroadcast publisher = startNode(broker, first).getBean(KafkaBroadcast.class);
+        startNode(broker, second);
+        for (AnnotationConfigApplicationContext node : nodes) {
+            MessageListenerContainer container = node.getBean(KafkaListenerEndpointRegistry.class).getListenerContainer("chat-fanout");
+            await().atMost(30, TimeUnit.SECONDS).until(() -> assigned(container).size() == PARTITIONS);
+            assertThat(container.getGroupId()).as("no consumer group").isNull();
+        }
+
+        List<String> expectedA = new ArrayList<>();
+        List<String> expectedB = new ArrayList<>();
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String room = i % 2 == 0 ? "room-a" : "room-b";
+            (i % 2 == 0 ? expectedA : expectedB).add(Integer.toString(i));
+            sends.add(publisher.publish(new MessageResponse(UUID.randomUUID(), room, 1L, Integer.toString(i), Instant.now())));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        for (Map<String, List<String>> received : List.of(first, second)) {
+            await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> {
+                assertThat(received.get("room-a")).containsExactlyElementsOf(expectedA);
+                assertThat(received.get("room-b")).containsExactlyElementsOf(expectedB);
+            });
+        }
+    }
+
+    private AnnotationConfigApplicationContext startNode(EmbeddedKafkaBroker broker, Map<String, List<String>> received) {
+        MessageBroadcaster broadcaster = mock(MessageBroadcaster.class);
+        doAnswer(call -> {
+            MessageResponse dto = call.getArgument(1);
+            received.computeIfAbsent(call.getArgument(0), r -> new CopyOnWriteArrayList<>()).add(dto.text());
+            return null;
+        }).when(broadcaster).emit(anyString(), any());
+
+        AnnotationConfigApplicationContext node = new AnnotationConfigApplicationContext();
+        node.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "chat.fanout.transport", "kafka",
+                "chat.fanout.kafka.topic", TOPIC,
+                "chat.fanout.kafka.partitions", PARTITIONS,
+                "spring.embedded.kafka.brokers", broker.getBrokersAsString())));
+        node.registerBean(MessageBroadcaster.class, () -> broadcaster);
+        node.registerBean(BroadcastCodec.class, () -> new BroadcastCodec("compact", new SimpleMeterRegistry()));
+        node.registerBean(InboundDispatcher.class, () -> new InboundDispatcher(broadcaster::reset, new SimpleMeterRegistry(), 2, 100));
+        node.register(NodeConfig.class, KafkaBroadcast.class);
+        node.refresh();
+        nodes.add(node);
+        return node;
+    }
+
+    private static List<TopicPartition> assigned(MessageListenerContainer container) {
+        return container.getAssignedPartitions() == null ? List.of() : List.copyOf(container.getAssignedPartitions());
+    }
+
+    @Configuration
+    @EnableKafka
+    static class NodeConfig {
+
+        @Bean
+        KafkaTemplate<String, byte[]> kafkaTemplate(Environment env) {
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.<String, Object>of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, env.getRequiredProperty("spring.embedded.kafka.brokers"),
+                    ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                    ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)));
+        }
+
+        @Bean
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory(Environment env) {
+            ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+            factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(Map.<String, Object>of(
+                    ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, env.getRequiredProperty("spring.embedded.kafka.brokers"),
+                    ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class,
+                    // the application reads from the end; earliest rules out a race with the first position lookup
+                    ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")));
+            return factory;
+        }
+    }
+}
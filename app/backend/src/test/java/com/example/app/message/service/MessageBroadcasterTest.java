@@ -0,0 +1,43 @@
+package com.example.app.message.service;
+
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MessageBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageBroadcaster broadcaster = new MessageBroadcaster(mock(RecentMessages.class),
+            new SseFrames(JsonMapper.builder().findAndAddModules().build()), event -> { }, meterRegistry, 16, "disconnect", 2);
+
+    @Test
+    void deliversARepeatedMessageOnce() {
+        MessageResponse first = message();
+        MessageResponse second = message();
+
+        StepVerifier.create(broadcaster.stream("room"))
+                .then(() -> {
+                    broadcaster.emit("room", first);
+                    broadcaster.emit("room", first);
+                    broadcaster.emit("room", second);
+                })
+                .assertNext(frame -> assertThat(frame.message()).isEqualTo(first))
+                .assertNext(frame -> assertThat(frame.message()).isEqualTo(second))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertThat(meterRegistry.counter("chat.stream.duplicates").count()).isEqualTo(1);
+    }
+
+    private static MessageResponse message() {
+        return new MessageResponse(UUID.randomUUID(), "room", 1L, "hi", Instant.parse("2026-01-01T00:00:00Z"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.app.message.service;
+
+import com.example.app.message.domain.MessageOutbox;
+import com.example.app.message.repository.MessageOutboxRepository;
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageOutboxRelayTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final MessageOutboxRepository repository = mock(MessageOutboxRepository.class);
+    private final PlatformTransactionManager transactions = mock(PlatformTransactionManager.class);
+    private final MessageFanout fanout = mock(MessageFanout.class);
+    private final MessageOutboxRelay relay = new MessageOutboxRelay(repository, fanout, new TransactionTemplate(transactions),
+            objectMapper, new SimpleMeterRegistry(), 10, 50, 30_000);
+
+    @Test
+    void publishesAfterTheClaimCommitsAndDeletesSentRows() throws Exception {
+        MessageOutbox row = row(1L);
+        when(repository.tryRelayLock(anyLong())).thenReturn(true);
+        when(repository.lockBatch(anyInt())).thenReturn(List.of(row));
+        when(fanout.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.sweep();
+
+        verify(repository, timeout(1000)).deleteAllByIdInBatch(List.of(1L));
+        var order = inOrder(repository, transactions, fanout);
+        order.verify(repository).claim(List.of(1L), 30_000L);
+        order.verify(transactions).commit(any());
+        order.verify(fanout).publish(any());
+        order.verify(repository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void deletesARowWhosePublishCompletesAfterTheDeadline() throws Exception {
+        MessageOutbox row = row(2L);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        when(repository.tryRelayLock(anyLong())).thenReturn(true);
+        when(repository.lockBatch(anyInt())).thenReturn(List.of(row));
+        when(fanout.publish(any())).thenReturn(slow);
+
+        relay.sweep();
+        verify(fanout, timeout(1000)).publish(any());
+        verify(repository, after(200).never()).deleteAllByIdInBatch(anyList());
+
+        slow.complete(null);
+        verify(repository, timeout(1000)).deleteAllByIdInBatch(List.of(2L));
+        verify(repository, never()).release(anyList());
+    }
+
+    private MessageOutbox row(long id) throws Exception {
+        MessageResponse message = new MessageResponse(UUID.randomUUID(), "room", 1L, "hi", Instant.parse("2026-01-01T00:00:00Z"));
+        MessageOutbox row = new MessageOutbox("room", objectMapper.writeValueAsString(message));
+        ReflectionTestUtils.setField(row, "id", id);
+        return row;
+    }
+}
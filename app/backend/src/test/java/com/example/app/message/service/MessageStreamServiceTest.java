@@ -0,0 +1,57 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.message.web.dto.MessageResponse;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageStreamServiceTest {
+
+    private final MessageBroadcaster broadcaster = mock(MessageBroadcaster.class);
+    private final RecentMessages recentMessages = mock(RecentMessages.class);
+    private final SseFrames frames = new SseFrames(JsonMapper.builder().findAndAddModules().build());
+    private final Sinks.Empty<Void> delivered = Sinks.empty();
+    private final RoomDelivery delivery = room -> delivered.asMono();
+    private final MessageStreamService service = new MessageStreamService(broadcaster, recentMessages, frames,
+            new StaticListableBeanFactory(Map.of("roomDelivery", delivery)).getBeanProvider(RoomDelivery.class));
+
+    @Test
+    void readsTheBacklogOnlyOnceTheRoomIsDelivered() {
+        MessageResponse acked = message(Instant.parse("2026-01-01T00:00:00Z"));
+        MessageResponse missed = message(Instant.parse("2026-01-01T00:00:01Z"));
+        when(broadcaster.stream("room")).thenReturn(Flux.never());
+        when(recentMessages.since(eq("room"), any())).thenReturn(Optional.of(List.of(missed)));
+        String lastEventId = Cursor.of(acked.createdAt(), acked.id()).encode();
+
+        StepVerifier.create(service.open("room", lastEventId))
+                // subscribing returned without waiting, and nothing was read yet
+                .then(() -> verify(recentMessages, never()).since(any(), any()))
+                .then(delivered::tryEmitEmpty)
+                .assertNext(frame -> verify(recentMessages, timeout(1000)).since(eq("room"), any()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static MessageResponse message(Instant createdAt) {
+        return new MessageResponse(UUID.randomUUID(), "room", 1L, "hi", createdAt);
+    }
+}
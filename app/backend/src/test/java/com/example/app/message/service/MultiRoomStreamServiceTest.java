@@ -0,0 +1,87 @@
+package com.example.app.message.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MultiRoomStreamServiceTest {
+
+    private static final Pattern CONNECTION_ID = Pattern.compile("\"connectionId\":\"([^\"]+)\"");
+
+    private final MessageStreamService messageStreamService = mock(MessageStreamService.class);
+    private final MultiRoomStreamService service = new MultiRoomStreamService(messageStreamService,
+            new SseFrames(JsonMapper.builder().findAndAddModules().build()), 10);
+    private final UUID owner = UUID.randomUUID();
+    private final UUID stranger = UUID.randomUUID();
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private Disposable subscription;
+
+    @AfterEach
+    void close() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Test
+    void onlyTheOwnerChangesTheRoomsOfAConnection() {
+        when(messageStreamService.open(any(), any())).thenReturn(Flux.never());
+        String connectionId = open();
+
+        assertNotFound(() -> service.addRoom(connectionId, stranger, "b", null));
+        assertNotFound(() -> service.removeRoom(connectionId, stranger, "a"));
+        verify(messageStreamService, never()).open(eq("b"), any());
+        assertThat(events).hasSize(1);
+
+        service.addRoom(connectionId, owner, "b", null);
+        service.removeRoom(connectionId, owner, "a");
+        verify(messageStreamService).open(eq("b"), any());
+        assertThat(events).hasSize(3);
+        assertThat(events.get(2)).contains("\"rooms\":[\"b\"]");
+    }
+
+    @Test
+    void unknownConnectionsAndMissingOwnersAreNotFound() {
+        when(messageStreamService.open(any(), any())).thenReturn(Flux.never());
+        String connectionId = open();
+
+        assertNotFound(() -> service.addRoom(UUID.randomUUID().toString(), owner, "b", null));
+        assertNotFound(() -> service.removeRoom(connectionId, null, "a"));
+    }
+
+    private String open() {
+        subscription = service.open(owner, Map.of("a", ""), null)
+                .subscribe(frame -> events.add(new String(frame.bytes(), StandardCharsets.UTF_8)));
+        assertThat(events).hasSize(1);
+        Matcher m = CONNECTION_ID.matcher(events.get(0));
+        assertThat(m.find()).isTrue();
+        return m.group(1);
+    }
+
+    private static void assertNotFound(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+}
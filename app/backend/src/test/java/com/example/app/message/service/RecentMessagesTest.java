@@ -0,0 +1,104 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import com.example.app.common.data.CursorPage;
+import com.example.app.message.repository.MessageRepository;
+import com.example.app.message.web.dto.MessageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RecentMessagesTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MessageRepository repository = mock(MessageRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void keepsTheNewestMessagesPerRoomInOrder() {
+        RecentMessages recent = new RecentMessages(repository, meterRegistry, 3, Long.MAX_VALUE);
+        recent.latest("a", 1);
+        for (int i = 0; i < 5; i++) {
+            recent.append(message("a", i));
+        }
+
+        CursorPage<MessageResponse> page = recent.latest("a", 3).orElseThrow();
+
+        assertThat(page.content()).extracting(MessageResponse::text).containsExactly("4", "3", "2");
+        assertThat(page.hasMore()).isTrue();
+        assertThat(recent.latest("a", 4)).as("more than retained per room").isEmpty();
+    }
+
+    @Test
+    void ignoresRoomsNobodyHasRead() {
+        RecentMessages recent = new RecentMessages(repository, meterRegistry, 3, Long.MAX_VALUE);
+        recent.append(message("a", 0));
+
+        assertThat(meterRegistry.get("chat.recent.rooms").gauge().value()).isZero();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedRoomOverTheByteCap() {
+        MessageResponse sample = message("a", 0);
+        long cap = 2 * RecentMessages.estimateBytes(sample) + 1;
+        RecentMessages recent = new RecentMessages(repository, meterRegistry, 10, cap);
+        recent.latest("a", 1);
+        recent.latest("b", 1);
+        recent.append(message("a", 0));
+        recent.latest("a", 1); // a is now the most recently used
+        recent.append(message("b", 1));
+        recent.append(message("a", 2));
+
+        assertThat(meterRegistry.get("chat.recent.bytes").gauge().value()).isLessThanOrEqualTo(cap);
+        recent.latest("b", 1);
+        verify(repository, times(2)).findLatest(eq("b"), any());
+        assertThat(recent.latest("a", 2).orElseThrow().content()).extracting(MessageResponse::text).containsExactly("2", "0");
+    }
+
+    @Test
+    void replaysWhatFollowsTheCursor() {
+        RecentMessages recent = new RecentMessages(repository, meterRegistry, 3, Long.MAX_VALUE);
+        recent.latest("a", 1);
+        List<MessageResponse> sent = List.of(message("a", 0), message("a", 1), message("a", 2), message("a", 3));
+        sent.forEach(recent::append);
+
+        assertThat(recent.since("a", cursor(sent.get(1)))).hasValueSatisfying(
+                newer -> assertThat(newer).extracting(MessageResponse::text).containsExactly("2", "3"));
+        assertThat(recent.since("a", cursor(sent.get(0)))).as("older than the retained window").isEmpty();
+    }
+
+    @Test
+    void buffersOwnCommitsAndForgetsRoomsOnATombstone() {
+        RecentMessages recent = new RecentMessages(repository, meterRegistry, 3, Long.MAX_VALUE);
+        MessageBroadcaster broadcaster = new MessageBroadcaster(recent, mock(SseFrames.class), event -> { },
+                meterRegistry, 16, "disconnect", 1024);
+        recent.latest("a", 1);
+        MessageResponse created = message("a", 0);
+
+        recent.onCreated(new MessageCreated(created));
+        assertThat(recent.latest("a", 1).orElseThrow().content()).containsExactly(created);
+
+        broadcaster.emit("a", MessageFanout.tombstone("a", created.id()));
+        recent.latest("a", 1);
+        verify(repository, times(2)).findLatest(eq("a"), any());
+    }
+
+    private static MessageResponse message(String room, int n) {
+        return new MessageResponse(UUID.randomUUID(), room, 1L, Integer.toString(n), T0.plusSeconds(n));
+    }
+
+    private static Cursor cursor(MessageResponse m) {
+        return Cursor.of(m.createdAt(), m.id());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.app.message.service;
+
+import com.example.app.common.data.Cursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamResumeTokenTest {
+
+    @Test
+    void roundTripsEveryRoomPosition() {
+        Map<String, Cursor> positions = new LinkedHashMap<>();
+        positions.put("general", Cursor.of(Instant.parse("2026-03-01T12:34:56.123456Z"), UUID.randomUUID()));
+        positions.put("방-2", Cursor.of(Instant.parse("2026-03-02T00:00:00Z"), UUID.randomUUID()));
+
+        String token = StreamResumeToken.encode(positions);
+
+        assertThat(token).startsWith(StreamResumeToken.PREFIX);
+        assertThat(StreamResumeToken.decode(token)).hasValueSatisfying(rooms -> {
+            assertThat(rooms).containsOnlyKeys("general", "방-2");
+            rooms.forEach((room, lastEventId) -> assertThat(Cursor.decode(lastEventId)).isEqualTo(positions.get(room)));
+        });
+    }
+
+    @Test
+    void neverMistakesACursorForAToken() {
+        String cursor = Cursor.of(Instant.now(), UUID.randomUUID()).encode();
+
+        assertThat(StreamResumeToken.decode(cursor)).isEmpty();
+        assertThat(StreamResumeToken.decode(null)).isEmpty();
+    }
+
+    @Test
+    void rejectsDamagedTokens() {
+        String token = StreamResumeToken.encode(Map.of("general", Cursor.of(Instant.EPOCH, UUID.randomUUID())));
+        byte[] body = Base64.getUrlDecoder().decode(token.substring(1));
+        body[0] = 9;
+
+        assertThat(StreamResumeToken.decode(token.substring(0, token.length() - 8))).as("truncated").isEmpty();
+        assertThat(StreamResumeToken.decode("~" + Base64.getUrlEncoder().withoutPadding().encodeToString(body))).as("version").isEmpty();
+        assertThat(StreamResumeToken.decode("~not base64!")).isEmpty();
+        assertThat(StreamResumeToken.decode(StreamResumeToken.encode(Map.of()))).as("no rooms").isEmpty();
+    }
+}
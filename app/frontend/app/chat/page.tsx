@@ -1,5 +1,5 @@
 'use client';
-import { useEffect, useRef, useState } from 'react';
+import { useCallback, useEffect, useRef, useState } from 'react';
 import { api } from '@/lib/api';
 import { getAccessToken, decodeToken, Session } from '@/lib/auth';
 import { Button, Card, CardContent, CardHeader, CardTitle, Input } from '@chatstack/ui';
@@ -26,22 +26,24 @@ export default function Chat() {
     setSession(decodeToken(at));
   }, []);
 
+  const loadMessages = useCallback(async () => {
+    try {
+      const initialMessages = await api
+        .get('api/messages/search', {
+          searchParams: { roomId: roomId, sort: 'createdAt,asc', size: '50' },
+        })
+        .json<any>();
+      setMsgs(initialMessages.content);
+    } catch (e) {
+      console.error('Failed to fetch initial messages', e);
+    }
+  }, [roomId]);
+
   // Fetch initial messages
   useEffect(() => {
     if (!session) return;
-    (async () => {
-      try {
-        const initialMessages = await api
-          .get('api/messages/search', {
-            searchParams: { roomId: roomId, sort: 'createdAt,asc', size: '50' },
-          })
-          .json<any>();
-        setMsgs(initialMessages.content);
-      } catch (e) {
-        console.error('Failed to fetch initial messages', e);
-      }
-    })();
-  }, [session, roomId]);
+    loadMessages();
+  }, [session, loadMessages]);
 
   // Connect to SSE stream for real-time updates
   useEffect(() => {
@@ -54,22 +56,30 @@ export default function Chat() {
       try {
         const newMessage: MessageItem = JSON.parse(event.data);
         if (newMessage.roomId === roomId) {
-          setMsgs((prevMsgs) => [...prevMsgs, newMessage]);
+          setMsgs((prevMsgs) =>
+            prevMsgs.some((m) => m.id === newMessage.id) ? prevMsgs : [...prevMsgs, newMessage],
+          );
         }
       } catch (e) {
         console.error('Failed to parse SSE message', e);
       }
     };
 
+    // The server could not replay everything missed since the last event id: reload the room.
+    eventSource.addEventListener('gap', () => {
+      loadMessages();
+    });
+
+    // Keep the EventSource open: the browser reconnects with Last-Event-ID and the server replays
+    // the missed messages.
     eventSource.onerror = (err) => {
-      console.error('EventSource failed:', err);
-      eventSource.close();
+      console.warn('EventSource interrupted, reconnecting:', err);
     };
 
     return () => {
       eventSource.close();
     };
-  }, [session, roomId]);
+  }, [session, roomId, loadMessages]);
 
   // Scroll to bottom on new message
   useEffect(() => {
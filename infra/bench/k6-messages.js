@@ -0,0 +1,100 @@
+// Throughput and latency of message create and room stream connect, for comparing platform and
+// virtual threads (SPRING_THREADS_VIRTUAL_ENABLED=false vs true) on the same build and host.
+//
+//   k6 run -e BASE=http://localhost:9094 -e RATE=500 -e DURATION=2m -e STREAMS=2000 infra/bench/k6-messages.js
+//
+// Scenarios run together, as in production: `streams` holds STREAMS long-lived SSE connections
+// open (each request is cut after HOLD seconds and reopened), while `create` posts messages at a
+// constant RATE per second into the same rooms. Compare http_reqs rate and the p(99) of
+// http_req_duration{scenario:create} and http_req_waiting{scenario:streams} (time to first byte
+// of the stream) between the two runs. Delivery CPU cost is measured separately by
+// sse-fanout-bench.sh.
+//
+// Pass -e MODE=platform or -e MODE=virtual: the run's numbers are also written to
+// k6-messages-<MODE>.json for the table in k6-messages-results.md.
+import http from 'k6/http';
+import { check } from 'k6';
+import encoding from 'k6/encoding';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+const BASE = __ENV.BASE || 'http://localhost:9094';
+const RATE = Number(__ENV.RATE || 200);
+const DURATION = __ENV.DURATION || '1m';
+const STREAMS = Number(__ENV.STREAMS || 500);
+const HOLD = Number(__ENV.HOLD || 30);
+const ROOMS = Number(__ENV.ROOMS || 50);
+const MODE = __ENV.MODE || 'unknown';
+
+export const options = {
+  scenarios: {
+    create: {
+      executor: 'constant-arrival-rate',
+      exec: 'create',
+      rate: RATE,
+      timeUnit: '1s',
+      duration: DURATION,
+      preAllocatedVUs: Math.max(10, RATE / 5),
+      maxVUs: RATE * 2,
+    },
+    streams: {
+      executor: 'constant-vus',
+      exec: 'stream',
+      vus: STREAMS,
+      duration: DURATION,
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  // always pass; they only make k6 report the per-scenario submetrics
+  thresholds: {
+    'http_req_duration{scenario:create}': ['max>=0'],
+    'http_req_waiting{scenario:streams}': ['max>=0'],
+    'http_reqs{scenario:create}': ['count>=0'],
+  },
+};
+
+export function setup() {
+  const email = `k6-${Date.now()}@example.com`;
+  const body = JSON.stringify({ email, password: 'benchpw1', displayName: 'k6' });
+  const json = { headers: { 'Content-Type': 'application/json' } };
+  http.post(`${BASE}/auth/register`, body, json);
+  const login = http.post(`${BASE}/auth/login`, JSON.stringify({ email, password: 'benchpw1' }), json);
+  const token = login.json('accessToken');
+  // create rejects a senderId other than the one the token was issued for
+  const claims = JSON.parse(encoding.b64decode(token.split('.')[1], 'rawurl', 's'));
+  return { token, senderId: claims.senderId };
+}
+
+export function create(data) {
+  const room = `bench-${Math.floor(Math.random() * ROOMS)}`;
+  const res = http.post(`${BASE}/api/messages`,
+    JSON.stringify({ roomId: room, senderId: data.senderId, text: `k6 ${__VU}-${__ITER}` }),
+    { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` } });
+  check(res, { 'created': (r) => r.status === 200 });
+}
+
+export function stream(data) {
+  const room = `bench-${__VU % ROOMS}`;
+  // the server never ends the stream; the client timeout closes it and the VU reconnects
+  http.get(`${BASE}/api/messages/stream/${room}?token=${data.token}`, {
+    timeout: `${HOLD}s`,
+    responseCallback: http.expectedStatuses(0, 200),
+  });
+}
+
+export function handleSummary(data) {
+  const m = data.metrics;
+  const result = {
+    mode: MODE,
+    rate: RATE,
+    duration: DURATION,
+    streams: STREAMS,
+    createPerSecond: m['http_reqs{scenario:create}'].values.rate,
+    createP99Ms: m['http_req_duration{scenario:create}'].values['p(99)'],
+    streamFirstByteP99Ms: m['http_req_waiting{scenario:streams}'].values['p(99)'],
+    failedRate: m.http_req_failed ? m.http_req_failed.values.rate : null,
+  };
+  return {
+    stdout: textSummary(data, { indent: ' ', enableColors: true }),
+    [`k6-messages-${MODE}.json`]: JSON.stringify(result, null, 2) + '\n',
+  };
+}
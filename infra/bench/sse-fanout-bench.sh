@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Server CPU per delivered SSE message for one busy room.
+#
+#   BACKEND_PID=$(pgrep -f ChatApplication) LISTENERS=2000 MESSAGES=200 infra/bench/sse-fanout-bench.sh
+#
+# Opens LISTENERS streams on one room, posts MESSAGES messages, waits for delivery, and reads the
+# backend's user+system CPU time from /proc before and after. Run it once against a build from
+# before per-room SSE frame encoding and once against the current tree, with the same settings
+# and the same JVM flags, and compare the "cpu per delivered message" lines (both include the
+# identical cost of handling the posts themselves). Raise `ulimit -n`
+# on the client for large LISTENERS.
+set -euo pipefail
+
+BASE=${BASE:-http://localhost:9094}
+ROOM=${ROOM:-bench-fanout}
+LISTENERS=${LISTENERS:-500}
+MESSAGES=${MESSAGES:-200}
+SETTLE=${SETTLE:-5}
+: "${BACKEND_PID:?set BACKEND_PID to the backend JVM pid (same host)}"
+
+EMAIL="bench-$(date +%s)@example.com"
+curl -sf -X POST "$BASE/auth/register" -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"benchpw1\",\"displayName\":\"bench\"}" >/dev/null || true
+TOKEN=$(curl -sf -X POST "$BASE/auth/login" -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"benchpw1\"}" | sed -E 's/.*"accessToken":"([^"]+)".*/\1/')
+# create rejects a senderId other than the one the token was issued for
+SENDER_ID=$(cut -d. -f2 <<<"$TOKEN" | tr '_-' '/+' | base64 -d 2>/dev/null | sed -E 's/.*"senderId":([0-9]+).*/\1/' || true)
+
+OUT=$(mktemp -d)
+trap 'kill $(jobs -p) 2>/dev/null || true; rm -rf "$OUT"' EXIT
+
+for i in $(seq 1 "$LISTENERS"); do
+  curl -sN "$BASE/api/messages/stream/$ROOM?token=$TOKEN" >"$OUT/$i.sse" 2>/dev/null &
+done
+sleep "$SETTLE"
+
+cpu_ticks() { awk '{print $14 + $15}' "/proc/$BACKEND_PID/stat"; }
+HZ=$(getconf CLK_TCK)
+before=$(cpu_ticks)
+start=$(date +%s.%N)
+
+for i in $(seq 1 "$MESSAGES"); do
+  curl -sf -X POST "$BASE/api/messages" -H "Authorization: Bearer $TOKEN" -H 'Content-Type: application/json' \
+    -d "{\"roomId\":\"$ROOM\",\"senderId\":$SENDER_ID,\"text\":\"bench message $i $(head -c 120 /dev/zero | tr '\0' x)\"}" >/dev/null
+done
+
+expected=$((LISTENERS * MESSAGES))
+for _ in $(seq 1 60); do
+  delivered=$(cat "$OUT"/*.sse | grep -c '^data:' || true)
+  [ "$delivered" -ge "$expected" ] && break
+  sleep 1
+done
+
+after=$(cpu_ticks)
+end=$(date +%s.%N)
+delivered=$(cat "$OUT"/*.sse | grep -c '^data:' || true)
+
+awk -v b="$before" -v a="$after" -v hz="$HZ" -v d="$delivered" -v e="$expected" -v s="$start" -v t="$end" 'BEGIN {
+  cpu = (a - b) / hz
+  printf "delivered               %d / %d\n", d, e
+  printf "wall time               %.2f s\n", t - s
+  printf "backend cpu             %.2f s\n", cpu
+  if (d > 0) printf "cpu per delivered message %.2f us\n", cpu * 1e6 / d
+}'
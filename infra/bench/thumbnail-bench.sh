@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Thumbnail pipeline throughput over a directory of sample images.
+#
+#   CORPUS=~/sample-images infra/bench/thumbnail-bench.sh
+#
+# Uploads every jpg/jpeg/png/gif/bmp under CORPUS (presign, PUT to the bucket, attach), then
+# waits until the backend has finished a thumbnail job for each and prints jobs per second from
+# the first attach, plus the file.thumbnail.duration timer. Needs actuator metrics exposed (the
+# dev profile does) and the bucket reachable from this host (MinIO in infra/docker-compose.yml).
+# Run it with different FILE_THUMBNAIL_THREADS values, or image mixes, against the same corpus.
+set -euo pipefail
+
+BASE=${BASE:-http://localhost:9094}
+ROOM=${ROOM:-bench-thumbs}
+: "${CORPUS:?set CORPUS to a directory of sample images}"
+
+EMAIL="bench-$(date +%s)@example.com"
+curl -sf -X POST "$BASE/auth/register" -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"benchpw1\",\"displayName\":\"bench\"}" >/dev/null || true
+TOKEN=$(curl -sf -X POST "$BASE/auth/login" -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"benchpw1\"}" | sed -E 's/.*"accessToken":"([^"]+)".*/\1/')
+AUTH="Authorization: Bearer $TOKEN"
+
+# total of a counter (or timer) measurement from /actuator/metrics
+metric() {
+  curl -sf "$BASE/actuator/metrics/$1${2:+?tag=$2}" -H "$AUTH" 2>/dev/null \
+    | sed -E "s/.*\"statistic\":\"${3:-COUNT}\",\"value\":([0-9.E-]+).*/\1/" || echo 0
+}
+jobs_done() {
+  awk -v g="$(metric file.thumbnail.jobs result:generated)" -v f="$(metric file.thumbnail.jobs result:failed)" \
+      -v r="$(metric file.thumbnail.jobs result:rejected)" 'BEGIN { printf "%d", g + f + r }'
+}
+
+mapfile -t FILES < <(find "$CORPUS" -type f \( -iname '*.jpg' -o -iname '*.jpeg' -o -iname '*.png' -o -iname '*.gif' -o -iname '*.bmp' \))
+[ "${#FILES[@]}" -gt 0 ] || { echo "no images under $CORPUS" >&2; exit 1; }
+
+content_type() {
+  case "${1,,}" in
+    *.png) echo image/png ;; *.gif) echo image/gif ;; *.bmp) echo image/bmp ;; *) echo image/jpeg ;;
+  esac
+}
+
+before=$(jobs_done)
+generated_before=$(metric file.thumbnail.jobs result:generated)
+start=$(date +%s.%N)
+
+for f in "${FILES[@]}"; do
+  ct=$(content_type "$f")
+  size=$(stat -c %s "$f")
+  presign=$(curl -sf -X POST "$BASE/api/files/presign" -H "$AUTH" -H 'Content-Type: application/json' \
+    -d "{\"roomCode\":\"$ROOM\",\"contentType\":\"$ct\",\"bytes\":$size}")
+  url=$(sed -E 's/.*"url":"([^"]+)".*/\1/' <<<"$presign")
+  key=$(sed -E 's/.*"key":"([^"]+)".*/\1/' <<<"$presign")
+  curl -sf -X PUT "$url" -H "Content-Type: $ct" --data-binary "@$f" >/dev/null
+  curl -sf -X POST "$BASE/api/files/attach" -H "$AUTH" -H 'Content-Type: application/json' \
+    -d "{\"roomCode\":\"$ROOM\",\"key\":\"$key\",\"contentType\":\"$ct\",\"bytes\":$size}" >/dev/null
+done
+uploaded=$(date +%s.%N)
+
+expected=${#FILES[@]}
+for _ in $(seq 1 600); do
+  [ $(( $(jobs_done) - before )) -ge "$expected" ] && break
+  sleep 0.5
+done
+end=$(date +%s.%N)
+
+awk -v n="$expected" -v d="$(( $(jobs_done) - before ))" -v g="$(metric file.thumbnail.jobs result:generated)" -v g0="$generated_before" \
+    -v s="$start" -v u="$uploaded" -v e="$end" \
+    -v tt="$(metric file.thumbnail.duration '' TOTAL_TIME)" -v tc="$(metric file.thumbnail.duration)" -v tm="$(metric file.thumbnail.duration '' MAX)" 'BEGIN {
+  printf "images                  %d (jobs finished %d, thumbnails %d)\n", n, d, g - g0
+  printf "upload + attach         %.2f s\n", u - s
+  printf "until last thumbnail    %.2f s\n", e - s
+  if (e > s) printf "throughput              %.1f images/s\n", d / (e - s)
+  if (tc > 0) printf "job time (all runs)     mean %.1f ms, max %.1f ms\n", tt * 1000 / tc, tm * 1000
+}'